@@ -0,0 +1,108 @@
+package com.photocrm.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+// Named, bounded executors that carry tenant and security context into their tasks:
+//   io      - blocking calls to Postgres, Redis and external services (default for @Async)
+//   cpu     - CPU-bound work such as image processing and aggregation
+//   storage - S3 transfers
+//   renditions - thumbnail and preview generation, queued rather than run on the caller
+// Saturated pools run the task on the caller, which pushes back on producers instead of queueing
+// without bound. In virtual-thread mode io and storage use virtual threads with a concurrency limit.
+@Configuration
+public class AsyncConfig implements AsyncConfigurer {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${app.async.io.threads:16}")
+    private int ioThreads;
+
+    @Value("${app.async.io.queue-capacity:500}")
+    private int ioQueueCapacity;
+
+    @Value("${app.async.cpu.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int cpuThreads;
+
+    @Value("${app.async.cpu.queue-capacity:200}")
+    private int cpuQueueCapacity;
+
+    @Value("${app.async.storage.threads:32}")
+    private int storageThreads;
+
+    @Value("${app.async.storage.queue-capacity:1000}")
+    private int storageQueueCapacity;
+
+    @Value("${app.photo.renditions.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int renditionThreads;
+
+    @Value("${app.photo.renditions.queue-capacity:10000}")
+    private int renditionQueueCapacity;
+
+    @Bean
+    public TenantAwareTaskDecorator tenantAwareTaskDecorator() {
+        return new TenantAwareTaskDecorator();
+    }
+
+    @Bean
+    public AsyncTaskExecutor ioExecutor() {
+        return blockingExecutor("io-", ioThreads, ioQueueCapacity);
+    }
+
+    @Bean
+    public AsyncTaskExecutor cpuExecutor() {
+        // CPU-bound work gains nothing from virtual threads
+        return threadPool("cpu-", cpuThreads, cpuQueueCapacity);
+    }
+
+    @Bean
+    public AsyncTaskExecutor storageExecutor() {
+        return blockingExecutor("storage-", storageThreads, storageQueueCapacity);
+    }
+
+    @Bean
+    public AsyncTaskExecutor renditionExecutor() {
+        // Submitted after commit on request threads, which must not end up rendering images themselves
+        ThreadPoolTaskExecutor executor = threadPool("rendition-", renditionThreads, renditionQueueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return ioExecutor();
+    }
+
+    private AsyncTaskExecutor blockingExecutor(String prefix, int threads, int queueCapacity) {
+        if (virtualThreadsEnabled) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(threads);
+            executor.setTaskDecorator(tenantAwareTaskDecorator());
+            return executor;
+        }
+        return threadPool(prefix, threads, queueCapacity);
+    }
+
+    private ThreadPoolTaskExecutor threadPool(String prefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(tenantAwareTaskDecorator());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,81 @@
+package com.photocrm.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Entry points for fanning work out from services. Tasks run on the named executors with the
+// caller's tenant and authentication; use these instead of parallel streams or the common pool.
+@Component
+public class AsyncTasks {
+
+    @Autowired
+    @Qualifier("ioExecutor")
+    private AsyncTaskExecutor ioExecutor;
+
+    @Autowired
+    @Qualifier("cpuExecutor")
+    private AsyncTaskExecutor cpuExecutor;
+
+    @Autowired
+    @Qualifier("storageExecutor")
+    private AsyncTaskExecutor storageExecutor;
+
+    public <T> CompletableFuture<T> io(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, ioExecutor);
+    }
+
+    public <T> CompletableFuture<T> cpu(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, cpuExecutor);
+    }
+
+    public <T> CompletableFuture<T> storage(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, storageExecutor);
+    }
+
+    public <T, R> List<R> parallelIo(Collection<T> items, Function<T, R> work) {
+        return parallelMap(items, work, ioExecutor);
+    }
+
+    public <T, R> List<R> parallelCpu(Collection<T> items, Function<T, R> work) {
+        return parallelMap(items, work, cpuExecutor);
+    }
+
+    public <T, R> List<R> parallelStorage(Collection<T> items, Function<T, R> work) {
+        return parallelMap(items, work, storageExecutor);
+    }
+
+    // Applies work to every item on the executor and returns the results in input order. The first
+    // failure is rethrown on the calling thread once all tasks have finished.
+    public static <T, R> List<R> parallelMap(Collection<T> items, Function<T, R> work, Executor executor) {
+        if (items.size() <= 1) {
+            return items.stream().map(work).toList();
+        }
+
+        ContextSnapshot snapshot = ContextSnapshot.capture();
+        List<CompletableFuture<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(CompletableFuture.supplyAsync(() -> snapshot.call(() -> work.apply(item)), executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+}
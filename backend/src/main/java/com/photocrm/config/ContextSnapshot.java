@@ -0,0 +1,47 @@
+package com.photocrm.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Tenant and authentication captured on the submitting thread and re-installed around work that runs
+// on another thread. Whatever the worker had before is restored afterwards, so pooled threads never
+// carry one request's tenant into the next task.
+public record ContextSnapshot(TenantContext.TenantScope tenantScope, Authentication authentication) {
+
+    public static ContextSnapshot capture() {
+        return new ContextSnapshot(TenantContext.currentScope(),
+                                   SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    public <T> T call(Supplier<T> work) {
+        SecurityContext previousSecurity = SecurityContextHolder.getContext();
+        SecurityContext security = SecurityContextHolder.createEmptyContext();
+        security.setAuthentication(authentication);
+        SecurityContextHolder.setContext(security);
+        try {
+            return TenantContext.callInScope(tenantScope, work);
+        } finally {
+            SecurityContextHolder.setContext(previousSecurity);
+        }
+    }
+
+    public Runnable wrap(Runnable work) {
+        return () -> call(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> Supplier<T> wrap(Supplier<T> work) {
+        return () -> call(work);
+    }
+
+    // For parallel streams: items.parallelStream().map(ContextSnapshot.capture().wrap(this::render))
+    public <T, R> Function<T, R> wrap(Function<T, R> work) {
+        return item -> call(() -> work.apply(item));
+    }
+}
@@ -1,16 +1,14 @@
 package com.photocrm.config;
 
-import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
 import org.springframework.stereotype.Component;
 
 @Component
-public class CurrentTenantIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
-
-    private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
+public class CurrentTenantIdentifierResolver implements org.hibernate.context.spi.CurrentTenantIdentifierResolver<String> {
 
     @Override
     public String resolveCurrentTenantIdentifier() {
-        String tenantId = currentTenant.get();
+        // Reads the same scope as TenantContext; there is no separate copy to keep in sync
+        String tenantId = TenantContext.getCurrentTenantIdentifier();
         return tenantId != null ? tenantId : "public";
     }
 
@@ -18,16 +16,4 @@ public class CurrentTenantIdentifierResolver implements CurrentTenantIdentifierR
     public boolean validateExistingCurrentSessions() {
         return true;
     }
-
-    public static void setCurrentTenant(String tenantId) {
-        currentTenant.set(tenantId);
-    }
-
-    public static void clearCurrentTenant() {
-        currentTenant.remove();
-    }
-
-    public static String getCurrentTenant() {
-        return currentTenant.get();
-    }
-}
\ No newline at end of file
+}
@@ -14,6 +14,9 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 @Configuration
@@ -48,25 +51,52 @@ public class DatabaseConfig {
     @Value("${spring.datasource.hikari.leak-detection-threshold:60000}")
     private long leakDetectionThreshold;
 
+    // Read-only transactions are routed to these replicas when any are configured
+    @Value("${app.datasource.replicas:}")
+    private List<String> replicaDatabaseUrls;
+
+    @Value("${app.datasource.replica-pool-size:10}")
+    private int replicaPoolSize;
+
     @Bean
     @Primary
-    public DataSource dataSource() {
+    public DataSource dataSource(RecentWriteTracker recentWriteTracker) {
+        HikariDataSource primary = createPool("PhotoCrmPool", databaseUrl, maximumPoolSize, false);
+
+        List<String> replicaUrls = replicaDatabaseUrls.stream().filter(url -> !url.isBlank()).toList();
+        if (replicaUrls.isEmpty()) {
+            return primary;
+        }
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "replica-" + i;
+            replicas.put(name, createPool("PhotoCrmPool-" + name, replicaUrls.get(i), replicaPoolSize, true));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, recentWriteTracker);
+    }
+
+    private HikariDataSource createPool(String poolName, String jdbcUrl, int poolSize, boolean readOnly) {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(databaseUrl);
+        config.setJdbcUrl(jdbcUrl);
         config.setUsername(databaseUsername);
         config.setPassword(databasePassword);
         config.setDriverClassName("org.postgresql.Driver");
         
         // Connection pool settings
-        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMaximumPoolSize(poolSize);
         config.setMinimumIdle(minimumIdle);
         config.setConnectionTimeout(connectionTimeout);
         config.setIdleTimeout(idleTimeout);
         config.setMaxLifetime(maxLifetime);
         config.setLeakDetectionThreshold(leakDetectionThreshold);
+
+        // Hibernate is told the provider disables auto-commit; transaction-local tenant context depends on it
+        config.setAutoCommit(false);
+        config.setReadOnly(readOnly);
         
         // Connection pool name
-        config.setPoolName("PhotoCrmPool");
+        config.setPoolName(poolName);
         
         // Connection test query
         config.setConnectionTestQuery("SELECT 1");
@@ -87,7 +117,9 @@ public class DatabaseConfig {
     }
 
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource,
+                                                                       MultiTenantConnectionProvider multiTenantConnectionProvider,
+                                                                       CurrentTenantIdentifierResolver tenantIdentifierResolver) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource);
         em.setPackagesToScan("com.photocrm.entity");
@@ -102,10 +134,6 @@ public class DatabaseConfig {
         properties.setProperty("hibernate.format_sql", "true");
         properties.setProperty("hibernate.jdbc.time_zone", "UTC");
         properties.setProperty("hibernate.multi_tenant", "SCHEMA");
-        properties.setProperty("hibernate.multi_tenant_connection_provider", 
-                              "com.photocrm.config.MultiTenantConnectionProvider");
-        properties.setProperty("hibernate.multi_tenant_identifier_resolver", 
-                              "com.photocrm.config.CurrentTenantIdentifierResolver");
         properties.setProperty("hibernate.connection.provider_disables_autocommit", "true");
         properties.setProperty("hibernate.jdbc.batch_size", "25");
         properties.setProperty("hibernate.order_inserts", "true");
@@ -113,13 +141,18 @@ public class DatabaseConfig {
         properties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
         
         em.setJpaProperties(properties);
+
+        // Hand Hibernate the Spring beans; instantiated by class name the provider has no data source
+        // and keeps connection bindings Spring cannot see
+        em.getJpaPropertyMap().put("hibernate.multi_tenant_connection_provider", multiTenantConnectionProvider);
+        em.getJpaPropertyMap().put("hibernate.multi_tenant_identifier_resolver", tenantIdentifierResolver);
         
         return em;
     }
 
     @Bean
     public PlatformTransactionManager transactionManager(LocalContainerEntityManagerFactoryBean entityManagerFactory) {
-        JpaTransactionManager transactionManager = new JpaTransactionManager();
+        JpaTransactionManager transactionManager = new ReplicaAwareTransactionManager();
         transactionManager.setEntityManagerFactory(entityManagerFactory.getObject());
         return transactionManager;
     }
@@ -6,14 +6,34 @@ import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class MultiTenantConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl<String> {
 
+    // Empty value for checkouts without a tenant; RLS policies fail to cast it, so nothing is visible
+    private static final String NO_TENANT = "";
+
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private TenantBulkhead tenantBulkhead;
+
+    // Bulkhead permits held by checked-out connections, returned in releaseConnection
+    private final Map<Connection, TenantBulkhead.Permit> heldPermits = new ConcurrentHashMap<>();
+
+    // Tenant the session of each physical connection is bound to. Keys are the driver connections,
+    // so entries disappear when the pool retires a connection.
+    private final Map<Connection, String> boundTenants = new WeakHashMap<>();
+    private final ReentrantLock boundTenantsLock = new ReentrantLock();
+
     @Override
     protected DataSource selectAnyDataSource() {
         return dataSource;
@@ -26,16 +46,99 @@ public class MultiTenantConnectionProvider extends AbstractDataSourceBasedMultiT
 
     @Override
     public Connection getConnection(String tenantIdentifier) throws SQLException {
-        Connection connection = super.getConnection(tenantIdentifier);
-        
-        // Set the tenant context for Row Level Security
-        if (tenantIdentifier != null && !tenantIdentifier.isEmpty()) {
-            try (var statement = connection.prepareStatement("SELECT set_tenant_context(?)")) {
-                statement.setObject(1, java.util.UUID.fromString(tenantIdentifier));
-                statement.execute();
-            }
+        TenantBulkhead.Permit permit = tenantBulkhead.acquire(tenantIdentifier);
+        Connection connection;
+        try {
+            connection = super.getConnection(tenantIdentifier);
+        } catch (SQLException | RuntimeException e) {
+            release(permit);
+            throw e;
+        }
+
+        try {
+            bindTenant(connection, sessionTenant(tenantIdentifier));
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            release(permit);
+            throw e;
+        }
+
+        if (permit != null) {
+            heldPermits.put(connection, permit);
         }
-        
         return connection;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
+        TenantBulkhead.Permit permit = heldPermits.remove(connection);
+        try {
+            super.releaseConnection(tenantIdentifier, connection);
+        } finally {
+            release(permit);
+        }
+    }
+
+    private static void release(TenantBulkhead.Permit permit) {
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    // Set the tenant context for Row Level Security, skipping the round trip when the pooled
+    // connection is already bound to the requested tenant
+    private void bindTenant(Connection connection, String tenant) throws SQLException {
+        Connection physical = connection.unwrap(Connection.class);
+        if (tenant.equals(boundTenant(physical))) {
+            return;
+        }
+
+        // Forget the old binding first so a failure below forces the setting on the next checkout
+        rememberTenant(physical, null);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT set_config('app.current_tenant_id', ?, false)")) {
+            statement.setString(1, tenant);
+            statement.execute();
+        }
+        // A rollback would undo a session-level setting made inside a transaction, so make it stick now
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+        rememberTenant(physical, tenant);
+    }
+
+    private String boundTenant(Connection physical) {
+        boundTenantsLock.lock();
+        try {
+            return boundTenants.get(physical);
+        } finally {
+            boundTenantsLock.unlock();
+        }
+    }
+
+    private void rememberTenant(Connection physical, String tenant) {
+        boundTenantsLock.lock();
+        try {
+            if (tenant != null) {
+                boundTenants.put(physical, tenant);
+            } else {
+                boundTenants.remove(physical);
+            }
+        } finally {
+            boundTenantsLock.unlock();
+        }
+    }
+
+    // The resolver falls back to "public" when no tenant is set; anything that is not a tenant id
+    // clears the setting
+    static String sessionTenant(String tenantIdentifier) {
+        if (tenantIdentifier == null || tenantIdentifier.isEmpty()) {
+            return NO_TENANT;
+        }
+        try {
+            return UUID.fromString(tenantIdentifier).toString();
+        } catch (IllegalArgumentException e) {
+            return NO_TENANT;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.photocrm.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Remembers which tenants committed a write within the read-your-writes window. Every commit is
+// broadcast over Redis so each node behind the load balancer holds the marker in its local map, and
+// routing a read never leaves the process. Each node stamps a marker with its own clock on receipt.
+@Component
+public class RecentWriteTracker implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RecentWriteTracker.class);
+
+    static final String CHANNEL = "tenant:writes";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${app.datasource.read-your-writes-window:5000}")
+    private long windowMillis;
+
+    private final Map<UUID, Long> localWrites = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public void recordWrite(UUID tenantId) {
+        if (tenantId == null) {
+            return;
+        }
+
+        localWrites.put(tenantId, System.currentTimeMillis());
+        try {
+            redisTemplate.convertAndSend(CHANNEL, tenantId.toString());
+        } catch (DataAccessException e) {
+            // The write is already committed; other nodes may briefly serve this tenant stale reads
+            log.warn("Could not publish recent write for tenant {}: {}", tenantId, e.getMessage());
+        }
+    }
+
+    public boolean hasRecentWrite(UUID tenantId) {
+        Long writtenAt = localWrites.get(tenantId);
+        return writtenAt != null && System.currentTimeMillis() - writtenAt < windowMillis;
+    }
+
+    public void prune() {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        localWrites.values().removeIf(writtenAt -> writtenAt < cutoff);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            UUID tenantId = UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8));
+            localWrites.put(tenantId, System.currentTimeMillis());
+        } catch (IllegalArgumentException e) {
+            // Ignore malformed write markers
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.photocrm.config;
+
+import jakarta.persistence.PersistenceException;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+// Tells ReplicaRoutingDataSource whether the transaction being begun is read-only, and records
+// tenant writes on commit for read-your-writes routing. Only transactions that actually changed
+// something count, so a read-write transaction that merely read does not pin its tenant to the primary.
+public class ReplicaAwareTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        ReplicaRoutingDataSource.beginTransaction(definition.isReadOnly());
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException e) {
+            ReplicaRoutingDataSource.endTransaction();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        boolean wrote = !status.isReadOnly() && getDataSource() instanceof ReplicaRoutingDataSource && hasChanges();
+        super.doCommit(status);
+        if (wrote) {
+            ((ReplicaRoutingDataSource) getDataSource()).recordWrite(TenantContext.getCurrentTenant());
+        }
+    }
+
+    // Postgres assigns a transaction id on the first row change or lock, which covers JdbcTemplate
+    // statements on the shared connection; entity changes Hibernate has not flushed yet are pending
+    // in the session and are written by the commit itself
+    private boolean hasChanges() {
+        EntityManagerHolder holder =
+            (EntityManagerHolder) TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+        if (holder == null) {
+            return true;
+        }
+        try {
+            Session session = holder.getEntityManager().unwrap(Session.class);
+            return session.doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT pg_current_xact_id_if_assigned() IS NOT NULL")) {
+                    return rs.next() && rs.getBoolean(1);
+                }
+            }) || session.isDirty();
+        } catch (PersistenceException e) {
+            // Cannot tell, so keep the tenant's reads on the primary
+            return true;
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            ReplicaRoutingDataSource.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.photocrm.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Takes replicas that fall too far behind the primary out of read routing until they catch up
+@Component
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // An idle primary produces no new transactions to replay, so a caught-up replica reports zero lag
+    private static final String LAG_QUERY =
+        "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.datasource.max-replica-lag:1000}")
+    private long maxLagMillis;
+
+    private final Map<String, AtomicLong> lagMillis = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica-lag-check-interval:5000}")
+    public void checkReplicas() {
+        if (!(dataSource instanceof ReplicaRoutingDataSource routing)) {
+            return;
+        }
+
+        routing.getReplicas().forEach((key, replica) -> {
+            try {
+                long lag = measureLag(replica);
+                lagGauge(key).set(lag);
+                routing.setReplicaHealthy(key, lag <= maxLagMillis);
+            } catch (SQLException e) {
+                log.warn("Replica {} is unreachable: {}", key, e.getMessage());
+                routing.setReplicaHealthy(key, false);
+            }
+        });
+        routing.pruneRecentWrites();
+    }
+
+    private long measureLag(DataSource replica) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            resultSet.next();
+            return (long) resultSet.getDouble(1);
+        }
+    }
+
+    private AtomicLong lagGauge(String key) {
+        return lagMillis.computeIfAbsent(key, replica -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("db.replica.lag", value, AtomicLong::get)
+                .description("Replication lag of a read replica in milliseconds")
+                .tag("replica", replica)
+                .register(meterRegistry);
+            return value;
+        });
+    }
+}
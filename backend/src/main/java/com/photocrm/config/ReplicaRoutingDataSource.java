@@ -0,0 +1,141 @@
+package com.photocrm.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Sends connections for read-only transactions to a healthy replica and everything else to the
+// primary. A tenant that committed a write within the read-your-writes window, on any node, keeps
+// reading from the primary so it never sees its own change disappear.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    // Read-only flag of each physical transaction begun on this thread, innermost first. Created
+    // lazily and dropped when empty so short-lived virtual threads do not each allocate a stack.
+    private static final ThreadLocal<Deque<Boolean>> transactions = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaKeys;
+    private final Set<String> healthyReplicas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final RecentWriteTracker recentWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, RecentWriteTracker recentWrites) {
+        this.primary = primary;
+        this.replicas = Map.copyOf(replicas);
+        this.replicaKeys = new ArrayList<>(replicas.keySet());
+        this.recentWrites = recentWrites;
+        this.healthyReplicas.addAll(replicaKeys);
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    public static void beginTransaction(boolean readOnly) {
+        Deque<Boolean> stack = transactions.get();
+        if (stack == null) {
+            stack = new ArrayDeque<>();
+            transactions.set(stack);
+        }
+        stack.push(readOnly);
+    }
+
+    public static void endTransaction() {
+        Deque<Boolean> stack = transactions.get();
+        if (stack == null) {
+            return;
+        }
+        stack.poll();
+        if (stack.isEmpty()) {
+            transactions.remove();
+        }
+    }
+
+    // Runs work that must see the latest committed data, such as cache refreshes after an invalidation
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = primaryOnly.get();
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                primaryOnly.remove();
+            } else {
+                primaryOnly.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Deque<Boolean> stack = transactions.get();
+        Boolean readOnly = stack != null ? stack.peek() : null;
+        if (!Boolean.TRUE.equals(readOnly) || Boolean.TRUE.equals(primaryOnly.get())) {
+            return PRIMARY;
+        }
+
+        UUID tenantId = TenantContext.getCurrentTenant();
+        if (tenantId != null && recentWrites.hasRecentWrite(tenantId)) {
+            return PRIMARY;
+        }
+
+        int size = replicaKeys.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            String key = replicaKeys.get((start + i) % size);
+            if (healthyReplicas.contains(key)) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+
+    public void recordWrite(UUID tenantId) {
+        recentWrites.recordWrite(tenantId);
+    }
+
+    public void pruneRecentWrites() {
+        recentWrites.prune();
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicaHealthy(String key, boolean healthy) {
+        if (healthy) {
+            healthyReplicas.add(key);
+        } else {
+            healthyReplicas.remove(key);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
 
@@ -41,4 +42,20 @@ public class S3Config {
             .serviceConfiguration(s3Config)
             .build();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public S3Presigner s3Presigner() {
+        AwsBasicCredentials credentials = AwsBasicCredentials.create(accessKey, secretKey);
+
+        S3Configuration s3Config = S3Configuration.builder()
+            .pathStyleAccessEnabled(true) // Required for MinIO
+            .build();
+
+        return S3Presigner.builder()
+            .endpointOverride(URI.create(s3Endpoint))
+            .region(Region.of(region))
+            .credentialsProvider(StaticCredentialsProvider.create(credentials))
+            .serviceConfiguration(s3Config)
+            .build();
+    }
+}
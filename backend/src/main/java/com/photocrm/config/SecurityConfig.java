@@ -1,11 +1,17 @@
 package com.photocrm.config;
 
+import com.photocrm.security.BitmaskPermissionEvaluator;
+import com.photocrm.security.BoundedPasswordEncoder;
 import com.photocrm.security.JwtAuthenticationEntryPoint;
 import com.photocrm.security.JwtAuthenticationFilter;
 import com.photocrm.security.MultiTenantInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -40,9 +46,31 @@ public class SecurityConfig implements WebMvcConfigurer {
     @Autowired
     private MultiTenantInterceptor multiTenantInterceptor;
 
+    @Value("${app.security.password-hashing.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${app.security.password-hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int passwordHashingThreads;
+
+    @Value("${app.security.password-hashing.queue-capacity:64}")
+    private int passwordHashingQueueCapacity;
+
+    @Bean
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(
+            new BCryptPasswordEncoder(bcryptStrength),
+            passwordHashingThreads,
+            passwordHashingQueueCapacity,
+            meterRegistry
+        );
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler(BitmaskPermissionEvaluator permissionEvaluator) {
+        // Backs @PreAuthorize("hasPermission(null, 'order:update')") with a single bit test on the principal
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        handler.setPermissionEvaluator(permissionEvaluator);
+        return handler;
     }
 
     @Bean
@@ -59,7 +87,8 @@ public class SecurityConfig implements WebMvcConfigurer {
             .authorizeHttpRequests(auth -> auth
                 // Public endpoints
                 .requestMatchers("/api/auth/**").permitAll()
-                .requestMatchers("/api/gallery/*/public").permitAll()
+                // Matchers see paths within the servlet context, without the /api context path
+                .requestMatchers("/gallery/*/public", "/gallery/*/public/photos").permitAll()
                 .requestMatchers("/api/payments/webhook/**").permitAll()
                 .requestMatchers("/actuator/health").permitAll()
                 .requestMatchers("/actuator/info").permitAll()
@@ -0,0 +1,12 @@
+package com.photocrm.config;
+
+import org.springframework.core.task.TaskDecorator;
+
+// Propagates tenant and security context into tasks handed to our executors
+public class TenantAwareTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return ContextSnapshot.capture().wrap(runnable);
+    }
+}
@@ -0,0 +1,129 @@
+package com.photocrm.config;
+
+import com.photocrm.entity.TenantEntity;
+import com.photocrm.service.TenantDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Caps how many pooled connections a single tenant can hold at once. Each tenant queues fairly on its
+// own semaphore, sized from its plan's share of the pool, so a noisy studio waits behind its own limit
+// instead of starving everyone else of connections.
+@Component
+public class TenantBulkhead {
+
+    @Autowired
+    @Lazy
+    private TenantDirectory tenantDirectory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.tenant.bulkhead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:20}")
+    private int poolSize;
+
+    // Keep below the Hikari connection-timeout so tenants hit their own limit before the pool's
+    @Value("${app.tenant.bulkhead.acquire-timeout:10000}")
+    private long acquireTimeoutMillis;
+
+    private final Map<UUID, Compartment> compartments = new ConcurrentHashMap<>();
+
+    // Returns null when the checkout is not subject to a limit
+    public Permit acquire(String tenantIdentifier) throws SQLException {
+        UUID tenantId = parseTenant(tenantIdentifier);
+        if (!enabled || tenantId == null) {
+            return null;
+        }
+
+        int limit = limitFor(tenantId);
+        Compartment compartment = compartments.compute(tenantId, (id, existing) ->
+            existing != null && existing.limit() == limit ? existing : newCompartment(id, limit, existing));
+
+        long started = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = compartment.permits().tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection");
+        } finally {
+            compartment.waitTime().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            compartment.rejected().increment();
+            throw new SQLTransientConnectionException(
+                "Tenant " + tenantId + " has reached its limit of " + limit + " database connections");
+        }
+        return new Permit(compartment.permits());
+    }
+
+    private int limitFor(UUID tenantId) {
+        // Cache only: acquiring a connection must not need another connection
+        TenantEntity.SubscriptionPlan plan = tenantDirectory.peekById(tenantId)
+            .map(TenantDirectory.TenantRef::plan)
+            .orElse(TenantEntity.SubscriptionPlan.BASIC);
+        return Math.max(1, poolSize * plan.getConnectionSharePercent() / 100);
+    }
+
+    private Compartment newCompartment(UUID tenantId, int limit, Compartment previous) {
+        // Meters are registered once per tenant and reused when the plan changes
+        if (previous != null) {
+            return new Compartment(limit, new Semaphore(limit, true), previous.waitTime(), previous.rejected());
+        }
+
+        String tenant = tenantId.toString();
+        Timer waitTime = Timer.builder("db.tenant.bulkhead.wait")
+            .description("Time spent waiting for a tenant connection permit")
+            .tag("tenant", tenant)
+            .register(meterRegistry);
+        Counter rejected = Counter.builder("db.tenant.bulkhead.rejected")
+            .description("Connection requests that timed out on the tenant limit")
+            .tag("tenant", tenant)
+            .register(meterRegistry);
+        return new Compartment(limit, new Semaphore(limit, true), waitTime, rejected);
+    }
+
+    private static UUID parseTenant(String tenantIdentifier) {
+        if (tenantIdentifier == null || tenantIdentifier.isEmpty()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(tenantIdentifier);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private record Compartment(int limit, Semaphore permits, Timer waitTime, Counter rejected) {
+    }
+
+    // Released back to the semaphore it came from, even if the tenant's limit changed meanwhile
+    public static final class Permit {
+
+        private final Semaphore semaphore;
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        public void release() {
+            semaphore.release();
+        }
+    }
+}
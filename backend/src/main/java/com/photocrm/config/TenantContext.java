@@ -3,31 +3,81 @@ package com.photocrm.config;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
+import java.util.function.Supplier;
 
+// Single source of the current tenant for both application code and Hibernate. The tenant travels as
+// one immutable TenantScope, so the id and the identifier string can never disagree, and the scope
+// can be handed to another thread as a whole.
 @Component
 public class TenantContext {
 
-    private static final ThreadLocal<UUID> currentTenant = new ThreadLocal<>();
+    private static final ThreadLocal<TenantScope> currentScope = new ThreadLocal<>();
 
     public static void setCurrentTenant(UUID tenantId) {
-        currentTenant.set(tenantId);
         if (tenantId != null) {
-            CurrentTenantIdentifierResolver.setCurrentTenant(tenantId.toString());
+            currentScope.set(new TenantScope(tenantId));
         } else {
-            CurrentTenantIdentifierResolver.clearCurrentTenant();
+            currentScope.remove();
         }
     }
 
     public static UUID getCurrentTenant() {
-        return currentTenant.get();
+        TenantScope scope = currentScope.get();
+        return scope != null ? scope.tenantId() : null;
+    }
+
+    // Identifier handed to Hibernate, computed once per scope rather than once per session
+    public static String getCurrentTenantIdentifier() {
+        TenantScope scope = currentScope.get();
+        return scope != null ? scope.identifier() : null;
     }
 
     public static void clear() {
-        currentTenant.remove();
-        CurrentTenantIdentifierResolver.clearCurrentTenant();
+        currentScope.remove();
     }
 
     public static boolean hasCurrentTenant() {
-        return currentTenant.get() != null;
+        return currentScope.get() != null;
+    }
+
+    public static TenantScope currentScope() {
+        return currentScope.get();
+    }
+
+    // Runs work with the given scope (null for none) and restores whatever was set before
+    public static <T> T callInScope(TenantScope scope, Supplier<T> work) {
+        TenantScope previous = currentScope.get();
+        if (scope != null) {
+            currentScope.set(scope);
+        } else {
+            currentScope.remove();
+        }
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                currentScope.set(previous);
+            } else {
+                currentScope.remove();
+            }
+        }
+    }
+
+    public static <T> T callAsTenant(UUID tenantId, Supplier<T> work) {
+        return callInScope(tenantId != null ? new TenantScope(tenantId) : null, work);
+    }
+
+    public static void runAsTenant(UUID tenantId, Runnable work) {
+        callAsTenant(tenantId, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public record TenantScope(UUID tenantId, String identifier) {
+
+        public TenantScope(UUID tenantId) {
+            this(tenantId, tenantId.toString());
+        }
     }
-}
\ No newline at end of file
+}
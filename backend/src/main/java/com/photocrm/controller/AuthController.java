@@ -2,11 +2,13 @@ package com.photocrm.controller;
 
 import com.photocrm.config.TenantContext;
 import com.photocrm.entity.UserEntity;
+import com.photocrm.security.PasswordHashingBusyException;
 import com.photocrm.service.AuthService;
-import com.photocrm.service.TenantService;
 import com.photocrm.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,31 +24,29 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
-    @Autowired
-    private TenantService tenantService;
-
     @Autowired
     private UserService userService;
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
         try {
-            // Find tenant by subdomain
-            var tenant = tenantService.getTenantBySubdomain(loginRequest.getSubdomain())
-                .orElseThrow(() -> new RuntimeException("Invalid subdomain"));
-
-            // Set tenant context
-            TenantContext.setCurrentTenant(tenant.getId());
-
-            // Authenticate user
-            var authResponse = authService.authenticateUser(
+            // Resolve tenant and user, verify the password and issue tokens in one pass
+            var authResponse = authService.login(
+                loginRequest.getSubdomain(),
                 loginRequest.getEmail(), 
-                loginRequest.getPassword(), 
-                tenant.getId()
+                loginRequest.getPassword()
             );
 
             return ResponseEntity.ok(authResponse);
         } catch (Exception e) {
+            if (isPasswordHashingBusy(e)) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Too many requests");
+                error.put("message", "Too many concurrent sign-in attempts, please retry shortly");
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(error);
+            }
             Map<String, String> error = new HashMap<>();
             error.put("error", "Authentication failed");
             error.put("message", e.getMessage());
@@ -70,9 +70,10 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authHeader,
+                                    @RequestBody(required = false) LogoutRequest logoutRequest) {
         try {
-            authService.logout(authHeader);
+            authService.logout(authHeader, logoutRequest != null ? logoutRequest.getRefreshToken() : null);
             Map<String, String> response = new HashMap<>();
             response.put("message", "Logged out successfully");
             return ResponseEntity.ok(response);
@@ -114,6 +115,16 @@ public class AuthController {
         }
     }
 
+    // The authentication manager may wrap the rejection, so look through the cause chain
+    private static boolean isPasswordHashingBusy(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof PasswordHashingBusyException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // Request DTOs
     public static class LoginRequest {
         private String email;
@@ -135,6 +146,13 @@ public class AuthController {
         public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
     }
 
+    public static class LogoutRequest {
+        private String refreshToken;
+
+        public String getRefreshToken() { return refreshToken; }
+        public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+    }
+
     public static class ForgotPasswordRequest {
         private String email;
         private String subdomain;
@@ -2,13 +2,25 @@ package com.photocrm.controller;
 
 import com.photocrm.config.TenantContext;
 import com.photocrm.entity.PhotoEntity;
+import com.photocrm.repository.GalleryPhotoView;
+import com.photocrm.service.PhotoSelectionService;
 import com.photocrm.service.PhotoService;
+import com.photocrm.service.ResourceVersionService;
+import com.photocrm.service.S3Service;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -19,9 +31,26 @@ public class GalleryController {
     @Autowired
     private PhotoService photoService;
 
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private PhotoSelectionService photoSelectionService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Value("${app.gallery.max-page-size:200}")
+    private int maxPageSize;
+
     @GetMapping("/{orderId}/public")
-    public ResponseEntity<?> getPublicGallery(@PathVariable UUID orderId) {
+    public ResponseEntity<?> getPublicGallery(@PathVariable UUID orderId, ServletWebRequest webRequest) {
         try {
+            String eTag = resourceVersionService.galleryETag(orderId, webRequest.getRequest().getQueryString());
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
             // For public gallery, we don't require tenant context
             // The orderId should be sufficient to identify the gallery
             List<PhotoEntity> photos = photoService.getPhotosByOrder(orderId);
@@ -30,6 +59,7 @@ public class GalleryController {
             response.setOrderId(orderId);
             response.setPhotos(photos);
             response.setTotalPhotos(photos.size());
+            response.setUrls(signGalleryUrls(photos));
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -37,7 +67,46 @@ public class GalleryController {
         }
     }
 
+    @GetMapping("/{orderId}/public/photos")
+    public ResponseEntity<?> getPublicGalleryPage(@PathVariable UUID orderId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "60") int limit,
+                                                  ServletWebRequest webRequest) {
+        try {
+            String eTag = resourceVersionService.galleryETag(orderId, webRequest.getRequest().getQueryString());
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
+            PhotoService.GalleryPage page = photoService.getGalleryPage(
+                orderId, cursor, Math.max(1, Math.min(limit, maxPageSize)));
+
+            List<String> keys = new ArrayList<>(page.photos().size() * 2);
+            for (GalleryPhotoView photo : page.photos()) {
+                keys.add(photo.getThumbnailUrl());
+                if (photo.getPreviewUrl() != null) {
+                    keys.add(photo.getPreviewUrl());
+                }
+            }
+            Map<String, String> signed = s3Service.generatePresignedDownloadUrls(keys);
+
+            List<GalleryPhoto> photos = page.photos().stream()
+                .map(photo -> {
+                    String thumbnail = signed.get(photo.getThumbnailUrl());
+                    String preview = photo.getPreviewUrl() != null ? signed.get(photo.getPreviewUrl()) : thumbnail;
+                    return new GalleryPhoto(photo.getId(), thumbnail, preview, photo.getWidth(), photo.getHeight(),
+                                            Boolean.TRUE.equals(photo.getIsSelected()), photo.getSelectionOrder());
+                })
+                .toList();
+
+            return ResponseEntity.ok(new GalleryPageResponse(orderId, photos, page.nextCursor()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/{orderId}/selections")
+    @PreAuthorize("hasPermission(null, 'photo:read')")
     public ResponseEntity<?> submitSelections(@PathVariable UUID orderId, 
                                             @Valid @RequestBody PhotoSelectionRequest request) {
         try {
@@ -46,23 +115,14 @@ public class GalleryController {
                 return ResponseEntity.badRequest().body("Tenant context not found");
             }
 
-            // Update photo selections
-            for (int i = 0; i < request.getSelectedPhotoIds().size(); i++) {
-                UUID photoId = request.getSelectedPhotoIds().get(i);
-                photoService.updatePhotoSelection(photoId, tenantId, true, i + 1);
-            }
-
-            // Calculate total amount
-            List<PhotoEntity> selectedPhotos = photoService.getSelectedPhotosByTenantAndOrder(tenantId, orderId);
-            double totalAmount = selectedPhotos.stream()
-                .mapToDouble(photo -> photo.getPrice() != null ? photo.getPrice().doubleValue() : 0.0)
-                .sum();
+            PhotoSelectionService.SelectionSummary summary =
+                photoSelectionService.select(tenantId, orderId, request.getSelectedPhotoIds());
 
             PhotoSelectionResponse response = new PhotoSelectionResponse();
-            response.setSelectedCount(selectedPhotos.size());
-            response.setTotalAmount(totalAmount);
-            response.setTax(totalAmount * 0.1); // 10% tax
-            response.setFinalAmount(totalAmount * 1.1);
+            response.setSelectedCount(summary.selectedCount());
+            response.setTotalAmount(summary.totalAmount());
+            response.setTax(summary.tax());
+            response.setFinalAmount(summary.finalAmount());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -71,13 +131,19 @@ public class GalleryController {
     }
 
     @GetMapping("/{orderId}/selections")
-    public ResponseEntity<?> getCurrentSelections(@PathVariable UUID orderId) {
+    @PreAuthorize("hasPermission(null, 'photo:read')")
+    public ResponseEntity<?> getCurrentSelections(@PathVariable UUID orderId, ServletWebRequest webRequest) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
             if (tenantId == null) {
                 return ResponseEntity.badRequest().body("Tenant context not found");
             }
 
+            String eTag = resourceVersionService.orderETag(orderId, tenantId, webRequest.getRequest().getQueryString());
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
             List<PhotoEntity> selectedPhotos = photoService.getSelectedPhotosByTenantAndOrder(tenantId, orderId);
             return ResponseEntity.ok(selectedPhotos);
         } catch (Exception e) {
@@ -86,6 +152,7 @@ public class GalleryController {
     }
 
     @PutMapping("/{orderId}/selections")
+    @PreAuthorize("hasPermission(null, 'photo:read')")
     public ResponseEntity<?> updateSelections(@PathVariable UUID orderId, 
                                             @Valid @RequestBody PhotoSelectionRequest request) {
         try {
@@ -94,19 +161,7 @@ public class GalleryController {
                 return ResponseEntity.badRequest().body("Tenant context not found");
             }
 
-            // First, deselect all photos for this order
-            List<PhotoEntity> allPhotos = photoService.getPhotosByTenantAndOrder(tenantId, orderId);
-            for (PhotoEntity photo : allPhotos) {
-                if (photo.getIsSelected()) {
-                    photoService.deselectPhoto(photo.getId(), tenantId);
-                }
-            }
-
-            // Then select the new photos
-            for (int i = 0; i < request.getSelectedPhotoIds().size(); i++) {
-                UUID photoId = request.getSelectedPhotoIds().get(i);
-                photoService.updatePhotoSelection(photoId, tenantId, true, i + 1);
-            }
+            photoSelectionService.replaceSelection(tenantId, orderId, request.getSelectedPhotoIds());
 
             return ResponseEntity.ok().build();
         } catch (Exception e) {
@@ -114,6 +169,26 @@ public class GalleryController {
         }
     }
 
+    // One batch signing call per gallery view; repeat views are served from the presign cache
+    private Map<UUID, GalleryPhotoUrls> signGalleryUrls(List<PhotoEntity> photos) {
+        List<String> keys = new ArrayList<>(photos.size() * 2);
+        for (PhotoEntity photo : photos) {
+            keys.add(photo.getThumbnailUrl());
+            if (photo.getPreviewUrl() != null) {
+                keys.add(photo.getPreviewUrl());
+            }
+        }
+        Map<String, String> signed = s3Service.generatePresignedDownloadUrls(keys);
+
+        Map<UUID, GalleryPhotoUrls> urls = new HashMap<>(photos.size() * 2);
+        for (PhotoEntity photo : photos) {
+            String thumbnail = signed.get(photo.getThumbnailUrl());
+            String preview = photo.getPreviewUrl() != null ? signed.get(photo.getPreviewUrl()) : thumbnail;
+            urls.put(photo.getId(), new GalleryPhotoUrls(thumbnail, preview));
+        }
+        return urls;
+    }
+
     // Request/Response DTOs
     public static class PhotoSelectionRequest {
         private List<UUID> selectedPhotoIds;
@@ -143,6 +218,7 @@ public class GalleryController {
         private List<PhotoEntity> photos;
         private int totalPhotos;
         private Integer selectionLimit;
+        private Map<UUID, GalleryPhotoUrls> urls;
 
         public UUID getOrderId() { return orderId; }
         public void setOrderId(UUID orderId) { this.orderId = orderId; }
@@ -152,21 +228,45 @@ public class GalleryController {
         public void setTotalPhotos(int totalPhotos) { this.totalPhotos = totalPhotos; }
         public Integer getSelectionLimit() { return selectionLimit; }
         public void setSelectionLimit(Integer selectionLimit) { this.selectionLimit = selectionLimit; }
+        public Map<UUID, GalleryPhotoUrls> getUrls() { return urls; }
+        public void setUrls(Map<UUID, GalleryPhotoUrls> urls) { this.urls = urls; }
+    }
+
+    public record GalleryPhoto(UUID id, String thumbnailUrl, String previewUrl, Integer width, Integer height,
+                               boolean selected, Integer selectionOrder) {
+    }
+
+    public record GalleryPageResponse(UUID orderId, List<GalleryPhoto> photos, String nextCursor) {
+    }
+
+    public static class GalleryPhotoUrls {
+        private String thumbnail;
+        private String preview;
+
+        public GalleryPhotoUrls(String thumbnail, String preview) {
+            this.thumbnail = thumbnail;
+            this.preview = preview;
+        }
+
+        public String getThumbnail() { return thumbnail; }
+        public void setThumbnail(String thumbnail) { this.thumbnail = thumbnail; }
+        public String getPreview() { return preview; }
+        public void setPreview(String preview) { this.preview = preview; }
     }
 
     public static class PhotoSelectionResponse {
         private int selectedCount;
-        private double totalAmount;
-        private double tax;
-        private double finalAmount;
+        private BigDecimal totalAmount;
+        private BigDecimal tax;
+        private BigDecimal finalAmount;
 
         public int getSelectedCount() { return selectedCount; }
         public void setSelectedCount(int selectedCount) { this.selectedCount = selectedCount; }
-        public double getTotalAmount() { return totalAmount; }
-        public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; }
-        public double getTax() { return tax; }
-        public void setTax(double tax) { this.tax = tax; }
-        public double getFinalAmount() { return finalAmount; }
-        public void setFinalAmount(double finalAmount) { this.finalAmount = finalAmount; }
+        public BigDecimal getTotalAmount() { return totalAmount; }
+        public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+        public BigDecimal getTax() { return tax; }
+        public void setTax(BigDecimal tax) { this.tax = tax; }
+        public BigDecimal getFinalAmount() { return finalAmount; }
+        public void setFinalAmount(BigDecimal finalAmount) { this.finalAmount = finalAmount; }
     }
 }
\ No newline at end of file
@@ -3,12 +3,19 @@ package com.photocrm.controller;
 import com.photocrm.config.TenantContext;
 import com.photocrm.entity.OrderEntity;
 import com.photocrm.service.OrderService;
+import com.photocrm.service.OrderSummaryService;
+import com.photocrm.service.ResourceVersionService;
+import com.photocrm.service.SeekPage;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -22,7 +29,17 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Value("${app.pagination.max-page-size:200}")
+    private int maxPageSize;
+
     @PostMapping
+    @PreAuthorize("hasPermission(null, 'order:create')")
     public ResponseEntity<?> createOrder(@Valid @RequestBody CreateOrderRequest request) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
@@ -46,6 +63,7 @@ public class OrderController {
     }
 
     @GetMapping
+    @PreAuthorize("hasPermission(null, 'order:read')")
     public ResponseEntity<?> getOrders(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) String status,
@@ -75,14 +93,39 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/seek")
+    @PreAuthorize("hasPermission(null, 'order:read')")
+    public ResponseEntity<?> seekOrders(@RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "50") int limit,
+                                        @RequestParam(defaultValue = "false") boolean includeCount) {
+        try {
+            UUID tenantId = TenantContext.getCurrentTenant();
+            if (tenantId == null) {
+                return ResponseEntity.badRequest().body("Tenant context not found");
+            }
+
+            SeekPage<OrderEntity> orders = orderService.getOrdersPage(
+                tenantId, cursor, Math.max(1, Math.min(limit, maxPageSize)), includeCount);
+            return ResponseEntity.ok(orders);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{orderId}")
-    public ResponseEntity<?> getOrder(@PathVariable UUID orderId) {
+    @PreAuthorize("hasPermission(null, 'order:read')")
+    public ResponseEntity<?> getOrder(@PathVariable UUID orderId, ServletWebRequest webRequest) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
             if (tenantId == null) {
                 return ResponseEntity.badRequest().body("Tenant context not found");
             }
 
+            String eTag = resourceVersionService.orderETag(orderId, tenantId, webRequest.getRequest().getQueryString());
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
             OrderEntity order = orderService.getOrderByIdAndTenant(orderId, tenantId);
             return ResponseEntity.ok(order);
         } catch (Exception e) {
@@ -90,7 +133,64 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/{orderId}/summary")
+    @PreAuthorize("hasPermission(null, 'order:read')")
+    public ResponseEntity<?> getOrderSummary(@PathVariable UUID orderId, ServletWebRequest webRequest) {
+        try {
+            UUID tenantId = TenantContext.getCurrentTenant();
+            if (tenantId == null) {
+                return ResponseEntity.badRequest().body("Tenant context not found");
+            }
+
+            String eTag = resourceVersionService.orderETag(orderId, tenantId, webRequest.getRequest().getQueryString());
+            if (eTag == null) {
+                return ResponseEntity.badRequest().body("Order not found");
+            }
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
+            return ResponseEntity.ok(orderSummaryService.getSummary(tenantId, orderId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Consistency check: recomputes the order's photo summary and reports whether it had drifted
+    @PostMapping("/{orderId}/summary/rebuild")
+    @PreAuthorize("hasPermission(null, 'order:update')")
+    public ResponseEntity<?> rebuildOrderSummary(@PathVariable UUID orderId) {
+        try {
+            UUID tenantId = TenantContext.getCurrentTenant();
+            if (tenantId == null) {
+                return ResponseEntity.badRequest().body("Tenant context not found");
+            }
+
+            int corrected = orderSummaryService.rebuild(tenantId, orderId);
+            return ResponseEntity.ok(new RebuildSummaryResponse(corrected));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/summaries/rebuild")
+    @PreAuthorize("hasPermission(null, 'order:update')")
+    public ResponseEntity<?> rebuildOrderSummaries() {
+        try {
+            UUID tenantId = TenantContext.getCurrentTenant();
+            if (tenantId == null) {
+                return ResponseEntity.badRequest().body("Tenant context not found");
+            }
+
+            int corrected = orderSummaryService.rebuildAll(tenantId);
+            return ResponseEntity.ok(new RebuildSummaryResponse(corrected));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{orderId}")
+    @PreAuthorize("hasPermission(null, 'order:update')")
     public ResponseEntity<?> updateOrder(@PathVariable UUID orderId, 
                                        @Valid @RequestBody UpdateOrderRequest request) {
         try {
@@ -115,6 +215,7 @@ public class OrderController {
     }
 
     @PutMapping("/{orderId}/status")
+    @PreAuthorize("hasPermission(null, 'order:update')")
     public ResponseEntity<?> updateOrderStatus(@PathVariable UUID orderId, 
                                              @RequestBody UpdateStatusRequest request) {
         try {
@@ -131,6 +232,7 @@ public class OrderController {
     }
 
     @PutMapping("/{orderId}/assign")
+    @PreAuthorize("hasPermission(null, 'order:update')")
     public ResponseEntity<?> assignPhotographer(@PathVariable UUID orderId, 
                                               @RequestBody AssignPhotographerRequest request) {
         try {
@@ -147,6 +249,7 @@ public class OrderController {
     }
 
     @DeleteMapping("/{orderId}")
+    @PreAuthorize("hasPermission(null, 'order:delete')")
     public ResponseEntity<?> deleteOrder(@PathVariable UUID orderId) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
@@ -210,4 +313,7 @@ public class OrderController {
         public UUID getPhotographerId() { return photographerId; }
         public void setPhotographerId(UUID photographerId) { this.photographerId = photographerId; }
     }
-}
\ No newline at end of file
+
+    public record RebuildSummaryResponse(int correctedSummaries) {
+    }
+}
@@ -3,13 +3,23 @@ package com.photocrm.controller;
 import com.photocrm.config.TenantContext;
 import com.photocrm.entity.PhotoEntity;
 import com.photocrm.service.PhotoService;
+import com.photocrm.service.QuotaExceededException;
+import com.photocrm.service.ResourceVersionService;
 import com.photocrm.service.S3Service;
+import com.photocrm.service.SeekPage;
+import com.photocrm.service.StreamingUploadService;
+import com.photocrm.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -26,7 +36,20 @@ public class PhotoController {
     @Autowired
     private S3Service s3Service;
 
+    @Autowired
+    private StreamingUploadService streamingUploadService;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Value("${app.pagination.max-page-size:200}")
+    private int maxPageSize;
+
     @PostMapping("/batch-upload")
+    @PreAuthorize("hasPermission(null, 'photo:upload')")
     public ResponseEntity<?> batchUploadPhotos(@Valid @RequestBody BatchUploadRequest request) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
@@ -34,6 +57,15 @@ public class PhotoController {
                 return ResponseEntity.badRequest().body("Tenant context not found");
             }
 
+            if (request.getUploadSessionId() != null) {
+                uploadSessionService.verifyKeys(
+                    request.getUploadSessionId(),
+                    tenantId,
+                    request.getOrderId(),
+                    request.getPhotos().stream().map(PhotoUploadData::getOriginalUrl).toList()
+                );
+            }
+
             List<PhotoEntity> photos = photoService.batchUploadPhotos(
                 tenantId,
                 request.getOrderId(),
@@ -41,19 +73,56 @@ public class PhotoController {
             );
 
             return ResponseEntity.ok(photos);
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Raw image bytes in the body, streamed to S3 as they arrive
+    @PostMapping("/stream")
+    @PreAuthorize("hasPermission(null, 'photo:upload')")
+    public ResponseEntity<?> streamUpload(@RequestParam UUID orderId,
+                                          @RequestParam String filename,
+                                          HttpServletRequest request) {
+        try {
+            UUID tenantId = TenantContext.getCurrentTenant();
+            if (tenantId == null) {
+                return ResponseEntity.badRequest().body("Tenant context not found");
+            }
+
+            PhotoEntity photo = streamingUploadService.upload(
+                tenantId,
+                orderId,
+                filename,
+                request.getContentType(),
+                request.getInputStream()
+            );
+
+            return ResponseEntity.ok(photo);
+        } catch (QuotaExceededException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @GetMapping("/order/{orderId}")
-    public ResponseEntity<?> getPhotosByOrder(@PathVariable UUID orderId, Pageable pageable) {
+    @PreAuthorize("hasPermission(null, 'photo:read')")
+    public ResponseEntity<?> getPhotosByOrder(@PathVariable UUID orderId, Pageable pageable,
+                                              ServletWebRequest webRequest) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
             if (tenantId == null) {
                 return ResponseEntity.badRequest().body("Tenant context not found");
             }
 
+            String eTag = resourceVersionService.orderETag(orderId, tenantId, webRequest.getRequest().getQueryString());
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
             Page<PhotoEntity> photos = photoService.getPhotosByTenantAndOrder(tenantId, orderId, pageable);
             return ResponseEntity.ok(photos);
         } catch (Exception e) {
@@ -61,7 +130,34 @@ public class PhotoController {
         }
     }
 
+    @GetMapping("/order/{orderId}/seek")
+    @PreAuthorize("hasPermission(null, 'photo:read')")
+    public ResponseEntity<?> seekPhotosByOrder(@PathVariable UUID orderId,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "100") int limit,
+                                               @RequestParam(defaultValue = "false") boolean includeCount,
+                                               ServletWebRequest webRequest) {
+        try {
+            UUID tenantId = TenantContext.getCurrentTenant();
+            if (tenantId == null) {
+                return ResponseEntity.badRequest().body("Tenant context not found");
+            }
+
+            String eTag = resourceVersionService.orderETag(orderId, tenantId, webRequest.getRequest().getQueryString());
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
+            SeekPage<PhotoEntity> photos = photoService.getPhotosPage(
+                tenantId, orderId, cursor, Math.max(1, Math.min(limit, maxPageSize)), includeCount);
+            return ResponseEntity.ok(photos);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{photoId}")
+    @PreAuthorize("hasPermission(null, 'photo:read')")
     public ResponseEntity<?> getPhoto(@PathVariable UUID photoId) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
@@ -77,6 +173,7 @@ public class PhotoController {
     }
 
     @PutMapping("/{photoId}")
+    @PreAuthorize("hasPermission(null, 'photo:update')")
     public ResponseEntity<?> updatePhoto(@PathVariable UUID photoId, 
                                        @Valid @RequestBody UpdatePhotoRequest request) {
         try {
@@ -99,6 +196,7 @@ public class PhotoController {
     }
 
     @PutMapping("/{photoId}/select")
+    @PreAuthorize("hasPermission(null, 'photo:read')")
     public ResponseEntity<?> selectPhoto(@PathVariable UUID photoId, 
                                        @RequestBody SelectPhotoRequest request) {
         try {
@@ -115,6 +213,7 @@ public class PhotoController {
     }
 
     @PutMapping("/{photoId}/deselect")
+    @PreAuthorize("hasPermission(null, 'photo:read')")
     public ResponseEntity<?> deselectPhoto(@PathVariable UUID photoId) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
@@ -130,6 +229,7 @@ public class PhotoController {
     }
 
     @GetMapping("/{photoId}/download")
+    @PreAuthorize("hasPermission(null, 'photo:read')")
     public ResponseEntity<?> getDownloadUrl(@PathVariable UUID photoId) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
@@ -145,6 +245,7 @@ public class PhotoController {
     }
 
     @PostMapping("/upload-url")
+    @PreAuthorize("hasPermission(null, 'photo:upload')")
     public ResponseEntity<?> getUploadUrl(@Valid @RequestBody UploadUrlRequest request) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
@@ -165,7 +266,29 @@ public class PhotoController {
         }
     }
 
+    @PostMapping("/upload-urls")
+    @PreAuthorize("hasPermission(null, 'photo:upload')")
+    public ResponseEntity<?> getUploadUrls(@Valid @RequestBody UploadUrlsRequest request) {
+        try {
+            UUID tenantId = TenantContext.getCurrentTenant();
+            if (tenantId == null) {
+                return ResponseEntity.badRequest().body("Tenant context not found");
+            }
+
+            UploadSessionService.UploadSession session = uploadSessionService.createSession(
+                tenantId,
+                request.getOrderId(),
+                request.getFiles()
+            );
+
+            return ResponseEntity.ok(session);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{photoId}")
+    @PreAuthorize("hasPermission(null, 'photo:delete')")
     public ResponseEntity<?> deletePhoto(@PathVariable UUID photoId) {
         try {
             UUID tenantId = TenantContext.getCurrentTenant();
@@ -184,11 +307,14 @@ public class PhotoController {
     public static class BatchUploadRequest {
         private UUID orderId;
         private List<PhotoUploadData> photos;
+        private String uploadSessionId;
 
         public UUID getOrderId() { return orderId; }
         public void setOrderId(UUID orderId) { this.orderId = orderId; }
         public List<PhotoUploadData> getPhotos() { return photos; }
         public void setPhotos(List<PhotoUploadData> photos) { this.photos = photos; }
+        public String getUploadSessionId() { return uploadSessionId; }
+        public void setUploadSessionId(String uploadSessionId) { this.uploadSessionId = uploadSessionId; }
     }
 
     public static class PhotoUploadData {
@@ -240,6 +366,16 @@ public class PhotoController {
         public void setMimeType(String mimeType) { this.mimeType = mimeType; }
     }
 
+    public static class UploadUrlsRequest {
+        private UUID orderId;
+        private List<UploadSessionService.UploadFile> files;
+
+        public UUID getOrderId() { return orderId; }
+        public void setOrderId(UUID orderId) { this.orderId = orderId; }
+        public List<UploadSessionService.UploadFile> getFiles() { return files; }
+        public void setFiles(List<UploadSessionService.UploadFile> files) { this.files = files; }
+    }
+
     public static class UploadUrlResponse {
         private String uploadUrl;
 
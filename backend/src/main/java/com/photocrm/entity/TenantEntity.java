@@ -128,18 +128,20 @@ public class TenantEntity {
 
     // Enums
     public enum SubscriptionPlan {
-        BASIC("Basic", 1000, 10),
-        PROFESSIONAL("Professional", 5000, 25),
-        ENTERPRISE("Enterprise", 50000, 100);
+        BASIC("Basic", 1000, 10, 25),
+        PROFESSIONAL("Professional", 5000, 25, 40),
+        ENTERPRISE("Enterprise", 50000, 100, 60);
 
         private final String displayName;
         private final int maxPhotos;
         private final int maxUsers;
+        private final int connectionSharePercent;
 
-        SubscriptionPlan(String displayName, int maxPhotos, int maxUsers) {
+        SubscriptionPlan(String displayName, int maxPhotos, int maxUsers, int connectionSharePercent) {
             this.displayName = displayName;
             this.maxPhotos = maxPhotos;
             this.maxUsers = maxUsers;
+            this.connectionSharePercent = connectionSharePercent;
         }
 
         public String getDisplayName() {
@@ -153,5 +155,10 @@ public class TenantEntity {
         public int getMaxUsers() {
             return maxUsers;
         }
+
+        // Largest share of the connection pool a single tenant on this plan may hold
+        public int getConnectionSharePercent() {
+            return connectionSharePercent;
+        }
     }
 }
\ No newline at end of file
@@ -6,7 +6,10 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -244,49 +247,79 @@ public class UserEntity {
 
     public enum Permission {
         // Order permissions
-        ORDER_CREATE("order:create"),
-        ORDER_READ("order:read"),
-        ORDER_UPDATE("order:update"),
-        ORDER_DELETE("order:delete"),
+        ORDER_CREATE("order:create", 0),
+        ORDER_READ("order:read", 1),
+        ORDER_UPDATE("order:update", 2),
+        ORDER_DELETE("order:delete", 3),
 
         // Photo permissions
-        PHOTO_UPLOAD("photo:upload"),
-        PHOTO_READ("photo:read"),
-        PHOTO_UPDATE("photo:update"),
-        PHOTO_DELETE("photo:delete"),
+        PHOTO_UPLOAD("photo:upload", 4),
+        PHOTO_READ("photo:read", 5),
+        PHOTO_UPDATE("photo:update", 6),
+        PHOTO_DELETE("photo:delete", 7),
 
         // Invoice permissions
-        INVOICE_CREATE("invoice:create"),
-        INVOICE_READ("invoice:read"),
-        INVOICE_UPDATE("invoice:update"),
-        INVOICE_DELETE("invoice:delete"),
+        INVOICE_CREATE("invoice:create", 8),
+        INVOICE_READ("invoice:read", 9),
+        INVOICE_UPDATE("invoice:update", 10),
+        INVOICE_DELETE("invoice:delete", 11),
 
         // Payment permissions
-        PAYMENT_PROCESS("payment:process"),
-        PAYMENT_READ("payment:read"),
-        PAYMENT_REFUND("payment:refund"),
+        PAYMENT_PROCESS("payment:process", 12),
+        PAYMENT_READ("payment:read", 13),
+        PAYMENT_REFUND("payment:refund", 14),
 
         // User permissions
-        USER_CREATE("user:create"),
-        USER_READ("user:read"),
-        USER_UPDATE("user:update"),
-        USER_DELETE("user:delete"),
+        USER_CREATE("user:create", 15),
+        USER_READ("user:read", 16),
+        USER_UPDATE("user:update", 17),
+        USER_DELETE("user:delete", 18),
 
         // Tenant permissions
-        TENANT_READ("tenant:read"),
-        TENANT_UPDATE("tenant:update"),
+        TENANT_READ("tenant:read", 19),
+        TENANT_UPDATE("tenant:update", 20),
 
         // Analytics permissions
-        ANALYTICS_READ("analytics:read");
+        ANALYTICS_READ("analytics:read", 21);
+
+        private static final Map<String, Permission> BY_KEY = new HashMap<>();
+
+        static {
+            for (Permission value : values()) {
+                BY_KEY.put(value.permission, value);
+            }
+        }
 
         private final String permission;
 
-        Permission(String permission) {
+        // Bit positions are persisted in issued tokens; never reuse or renumber them
+        private final long mask;
+
+        Permission(String permission, int bit) {
             this.permission = permission;
+            this.mask = 1L << bit;
         }
 
         public String getPermission() {
             return permission;
         }
+
+        public long getMask() {
+            return mask;
+        }
+
+        public static Permission fromKey(String key) {
+            return BY_KEY.get(key);
+        }
+
+        public static long toMask(Collection<Permission> permissions) {
+            long mask = 0L;
+            if (permissions != null) {
+                for (Permission permission : permissions) {
+                    mask |= permission.mask;
+                }
+            }
+            return mask;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.photocrm.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Slim read projection for gallery pages; no metadata, prices or audit columns
+public interface GalleryPhotoView {
+
+    UUID getId();
+
+    String getThumbnailUrl();
+
+    String getPreviewUrl();
+
+    Integer getWidth();
+
+    Integer getHeight();
+
+    Boolean getIsSelected();
+
+    Integer getSelectionOrder();
+
+    LocalDateTime getUploadedAt();
+}
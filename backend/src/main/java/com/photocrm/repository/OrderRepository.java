@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,10 +19,31 @@ public interface OrderRepository extends JpaRepository<OrderEntity, UUID> {
 
     List<OrderEntity> findByTenantId(UUID tenantId);
 
+    // Bumped by database triggers whenever the order or any of its photos changes
+    @Query(value = "SELECT content_version FROM orders WHERE id = :orderId AND tenant_id = :tenantId AND is_active = true",
+           nativeQuery = true)
+    Optional<Long> findContentVersion(@Param("orderId") UUID orderId, @Param("tenantId") UUID tenantId);
+
+    @Query(value = "SELECT content_version FROM orders WHERE id = :orderId AND is_active = true", nativeQuery = true)
+    Optional<Long> findContentVersionById(@Param("orderId") UUID orderId);
+
     List<OrderEntity> findByTenantIdAndIsActiveTrue(UUID tenantId);
 
     Page<OrderEntity> findByTenantIdAndIsActiveTrue(UUID tenantId, Pageable pageable);
 
+    // Newest first; (created_at, id) row comparison seeks straight into idx_orders_tenant_created_keyset
+    @Query(value = "SELECT * FROM orders WHERE tenant_id = :tenantId AND is_active = true " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<OrderEntity> findOrderPage(@Param("tenantId") UUID tenantId, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM orders WHERE tenant_id = :tenantId AND is_active = true " +
+                   "AND (created_at, id) < (:createdAt, :id) " +
+                   "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<OrderEntity> findOrderPageBefore(@Param("tenantId") UUID tenantId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") UUID id,
+                                          @Param("limit") int limit);
+
     List<OrderEntity> findByTenantIdAndStatus(UUID tenantId, OrderEntity.OrderStatus status);
 
     List<OrderEntity> findByTenantIdAndStatusAndIsActiveTrue(UUID tenantId, OrderEntity.OrderStatus status);
@@ -14,7 +14,13 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PhotoRepository extends JpaRepository<PhotoEntity, UUID> {
+public interface PhotoRepository extends JpaRepository<PhotoEntity, UUID>, PhotoRepositoryCustom {
+
+    // Gallery rows as GalleryPhotoView, with dimensions read from the metadata the rendition job writes
+    String GALLERY_SELECT = "SELECT id, thumbnail_url AS \"thumbnailUrl\", preview_url AS \"previewUrl\", " +
+        "(metadata->>'width')::int AS width, (metadata->>'height')::int AS height, " +
+        "is_selected AS \"isSelected\", selection_order AS \"selectionOrder\", " +
+        "uploaded_at AS \"uploadedAt\" FROM photos ";
 
     List<PhotoEntity> findByTenantId(UUID tenantId);
 
@@ -24,6 +30,8 @@ public interface PhotoRepository extends JpaRepository<PhotoEntity, UUID> {
 
     List<PhotoEntity> findByOrderIdAndIsActiveTrue(UUID orderId);
 
+    boolean existsByTenantIdAndOriginalUrlAndIsActiveTrue(UUID tenantId, String originalUrl);
+
     List<PhotoEntity> findByTenantIdAndOrderId(UUID tenantId, UUID orderId);
 
     List<PhotoEntity> findByTenantIdAndOrderIdAndIsActiveTrue(UUID tenantId, UUID orderId);
@@ -77,6 +85,33 @@ public interface PhotoRepository extends JpaRepository<PhotoEntity, UUID> {
     @Query("SELECT p FROM PhotoEntity p WHERE p.tenantId = :tenantId AND p.orderId = :orderId AND p.isSelected = true AND p.isActive = true ORDER BY p.selectionOrder ASC")
     List<PhotoEntity> findSelectedPhotosByTenantAndOrderOrderedBySelection(@Param("tenantId") UUID tenantId, @Param("orderId") UUID orderId);
 
+    @Query(value = GALLERY_SELECT + "WHERE order_id = :orderId AND is_active = true " +
+                   "ORDER BY uploaded_at, id LIMIT :limit", nativeQuery = true)
+    List<GalleryPhotoView> findGalleryPage(@Param("orderId") UUID orderId, @Param("limit") int limit);
+
+    @Query(value = GALLERY_SELECT + "WHERE order_id = :orderId AND is_active = true " +
+                   "AND (uploaded_at, id) > (:uploadedAt, :id) " +
+                   "ORDER BY uploaded_at, id LIMIT :limit", nativeQuery = true)
+    List<GalleryPhotoView> findGalleryPageAfter(@Param("orderId") UUID orderId,
+                                                @Param("uploadedAt") LocalDateTime uploadedAt,
+                                                @Param("id") UUID id,
+                                                @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM photos WHERE tenant_id = :tenantId AND order_id = :orderId AND is_active = true " +
+                   "ORDER BY uploaded_at, id LIMIT :limit", nativeQuery = true)
+    List<PhotoEntity> findPhotoPage(@Param("tenantId") UUID tenantId,
+                                    @Param("orderId") UUID orderId,
+                                    @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM photos WHERE tenant_id = :tenantId AND order_id = :orderId AND is_active = true " +
+                   "AND (uploaded_at, id) > (:uploadedAt, :id) " +
+                   "ORDER BY uploaded_at, id LIMIT :limit", nativeQuery = true)
+    List<PhotoEntity> findPhotoPageAfter(@Param("tenantId") UUID tenantId,
+                                         @Param("orderId") UUID orderId,
+                                         @Param("uploadedAt") LocalDateTime uploadedAt,
+                                         @Param("id") UUID id,
+                                         @Param("limit") int limit);
+
     Optional<PhotoEntity> findByIdAndTenantId(UUID id, UUID tenantId);
 
     Optional<PhotoEntity> findByIdAndTenantIdAndIsActiveTrue(UUID id, UUID tenantId);
@@ -0,0 +1,12 @@
+package com.photocrm.repository;
+
+import com.photocrm.entity.PhotoEntity;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface PhotoRepositoryCustom {
+
+    // Inserts new photos of one tenant with multi-row INSERTs, bypassing the persistence context
+    List<PhotoEntity> insertAll(UUID tenantId, List<PhotoEntity> photos);
+}
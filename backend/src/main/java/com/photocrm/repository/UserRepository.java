@@ -19,6 +19,10 @@ public interface UserRepository extends JpaRepository<UserEntity, UUID> {
 
     Optional<UserEntity> findByEmailAndTenantIdAndIsActiveTrue(String email, UUID tenantId);
 
+    @Query("SELECT u FROM UserEntity u LEFT JOIN FETCH u.permissions JOIN TenantEntity t ON t.id = u.tenantId " +
+           "WHERE t.subdomain = :subdomain AND t.isActive = true AND u.email = :email AND u.isActive = true")
+    Optional<UserEntity> findActiveLoginCandidate(@Param("subdomain") String subdomain, @Param("email") String email);
+
     List<UserEntity> findByTenantId(UUID tenantId);
 
     List<UserEntity> findByTenantIdAndIsActiveTrue(UUID tenantId);
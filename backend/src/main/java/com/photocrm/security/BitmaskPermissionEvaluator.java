@@ -0,0 +1,37 @@
+package com.photocrm.security;
+
+import com.photocrm.entity.UserEntity;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+// Resolves hasPermission(null, 'order:update') against the principal's permission bitmask.
+// Permissions are tenant-wide, so the target object is ignored.
+@Component
+public class BitmaskPermissionEvaluator implements PermissionEvaluator {
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        return check(authentication, permission);
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType,
+                                 Object permission) {
+        return check(authentication, permission);
+    }
+
+    private boolean check(Authentication authentication, Object permission) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof TenantUserPrincipal principal)) {
+            return false;
+        }
+        if (!(permission instanceof String key)) {
+            return false;
+        }
+
+        UserEntity.Permission required = UserEntity.Permission.fromKey(key);
+        return required != null && principal.hasPermission(required);
+    }
+}
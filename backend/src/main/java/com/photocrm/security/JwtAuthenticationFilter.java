@@ -8,15 +8,16 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.UUID;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,6 +28,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SecurityVersionService securityVersionService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Value("${app.security.stateless-authentication:true}")
+    private boolean statelessAuthentication;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                   FilterChain filterChain) throws ServletException, IOException {
@@ -36,28 +46,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                if (jwtUtil.validateToken(jwt)) {
-                    String username = jwtUtil.extractUsername(jwt);
-                    UUID tenantId = jwtUtil.extractTenantId(jwt);
-                    String role = jwtUtil.extractRole(jwt);
+                Optional<JwtClaims> verified = jwtUtil.verify(jwt)
+                    .filter(claims -> !tokenRevocationService.isRevoked(claims.tokenId()));
+                if (verified.isPresent()) {
+                    JwtClaims claims = verified.get();
 
                     // Set tenant context
-                    TenantContext.setCurrentTenant(tenantId);
-
-                    // Load user details
-                    UserEntity user = userService.findByEmailAndTenantId(username, tenantId)
-                        .orElseThrow(() -> new RuntimeException("User not found"));
-
-                    UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
-                        .username(user.getEmail())
-                        .password(user.getPasswordHash())
-                        .authorities(role)
-                        .build();
+                    TenantContext.setCurrentTenant(claims.tenantId());
 
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                    TenantUserPrincipal principal = resolvePrincipal(claims);
+                    if (principal != null) {
+                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            principal, null, principal.getAuthorities());
+                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                    } else {
+                        TenantContext.clear();
+                    }
                 }
             } catch (Exception e) {
                 logger.error("Cannot set user authentication: {}", e.getMessage());
@@ -73,4 +78,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             TenantContext.clear();
         }
     }
-}
\ No newline at end of file
+
+    private TenantUserPrincipal resolvePrincipal(JwtClaims claims) {
+        if (statelessAuthentication && claims.supportsStatelessAuthentication()) {
+            try {
+                // Deactivation, password and role changes bump the version and revoke older tokens
+                if (!securityVersionService.isCurrent(claims.userId(), claims.securityVersion())) {
+                    return null;
+                }
+                return TenantUserPrincipal.fromClaims(claims);
+            } catch (DataAccessException e) {
+                logger.warn("Security version lookup failed, falling back to database authentication", e);
+            }
+        }
+
+        // Load user details
+        UserEntity user = userService.findByEmailAndTenantId(claims.subject(), claims.tenantId())
+            .orElseThrow(() -> new RuntimeException("User not found"));
+        return TenantUserPrincipal.fromUser(user);
+    }
+}
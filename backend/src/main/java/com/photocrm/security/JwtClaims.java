@@ -0,0 +1,51 @@
+package com.photocrm.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Immutable snapshot of the claims of a token whose signature has already been verified
+public record JwtClaims(String tokenId,
+                        String subject,
+                        UUID tenantId,
+                        UUID userId,
+                        String role,
+                        Long securityVersion,
+                        Long permissions,
+                        String tokenType,
+                        Instant issuedAt,
+                        Instant expiresAt) {
+
+    static JwtClaims from(Claims claims) {
+        String tenantIdStr = claims.get("tenant_id", String.class);
+        String userIdStr = claims.get("user_id", String.class);
+        Number securityVersion = claims.get("sv", Number.class);
+        Number permissions = claims.get("perms", Number.class);
+        return new JwtClaims(
+            claims.getId(),
+            claims.getSubject(),
+            tenantIdStr != null ? UUID.fromString(tenantIdStr) : null,
+            userIdStr != null ? UUID.fromString(userIdStr) : null,
+            claims.get("role", String.class),
+            securityVersion != null ? securityVersion.longValue() : null,
+            permissions != null ? permissions.longValue() : null,
+            claims.get("type", String.class),
+            claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+            claims.getExpiration() != null ? claims.getExpiration().toInstant() : null
+        );
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(tokenType);
+    }
+
+    // Tokens issued before user_id/sv/perms were added can only be authenticated against the database
+    public boolean supportsStatelessAuthentication() {
+        return tenantId != null && userId != null && securityVersion != null && permissions != null;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt != null && expiresAt.toEpochMilli() <= nowMillis;
+    }
+}
@@ -1,7 +1,10 @@
 package com.photocrm.security;
 
+import com.photocrm.entity.UserEntity;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -10,6 +13,7 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
 
@@ -25,8 +29,44 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration}")
     private Long refreshExpiration;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    // The key and parser are immutable and thread-safe, so build them once
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
+    }
+
+    // Verifies signature and expiry once and returns the claims, served from cache for repeat tokens
+    public Optional<JwtClaims> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+
+        JwtClaims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        try {
+            JwtClaims claims = JwtClaims.from(extractAllClaims(token));
+            verifiedTokenCache.put(token, claims);
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
     public String extractUsername(String token) {
@@ -52,35 +92,38 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     private Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
 
-    public String generateToken(UserDetails userDetails, UUID tenantId, String role) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("tenant_id", tenantId.toString());
-        claims.put("role", role);
-        return createToken(claims, userDetails.getUsername());
+    public String generateToken(UserEntity user, long securityVersion) {
+        return createToken(baseClaims(user, securityVersion), user.getEmail());
     }
 
-    public String generateRefreshToken(UserDetails userDetails, UUID tenantId, String role) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("tenant_id", tenantId.toString());
-        claims.put("role", role);
+    public String generateRefreshToken(UserEntity user, long securityVersion) {
+        Map<String, Object> claims = baseClaims(user, securityVersion);
         claims.put("type", "refresh");
-        return createRefreshToken(claims, userDetails.getUsername());
+        return createRefreshToken(claims, user.getEmail());
+    }
+
+    // Everything the request filter needs to build a principal without a database round trip
+    private Map<String, Object> baseClaims(UserEntity user, long securityVersion) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("tenant_id", user.getTenantId().toString());
+        claims.put("user_id", user.getId().toString());
+        claims.put("role", user.getRole().name());
+        claims.put("sv", securityVersion);
+        claims.put("perms", UserEntity.Permission.toMask(user.getPermissions()));
+        return claims;
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
@@ -91,6 +134,7 @@ public class JwtUtil {
     private String createRefreshToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + refreshExpiration))
@@ -104,24 +148,11 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verify(token).isPresent();
     }
 
     public Boolean isRefreshToken(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            return "refresh".equals(claims.get("type"));
-        } catch (Exception e) {
-            return false;
-        }
+        return verify(token).map(JwtClaims::isRefreshToken).orElse(false);
     }
 
     public String getTokenFromHeader(String authHeader) {
@@ -1,20 +1,18 @@
 package com.photocrm.security;
 
 import com.photocrm.config.TenantContext;
-import com.photocrm.repository.TenantRepository;
+import com.photocrm.service.TenantDirectory;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
-import java.util.UUID;
-
 @Component
 public class MultiTenantInterceptor implements HandlerInterceptor {
 
     @Autowired
-    private TenantRepository tenantRepository;
+    private TenantDirectory tenantDirectory;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -24,8 +22,8 @@ public class MultiTenantInterceptor implements HandlerInterceptor {
         
         if (subdomain != null && !subdomain.isEmpty() && !subdomain.equals("www")) {
             // Find tenant by subdomain
-            tenantRepository.findBySubdomainAndIsActiveTrue(subdomain)
-                .ifPresent(tenant -> TenantContext.setCurrentTenant(tenant.getId()));
+            tenantDirectory.findActiveBySubdomain(subdomain)
+                .ifPresent(tenant -> TenantContext.setCurrentTenant(tenant.id()));
         }
         
         return true;
@@ -43,9 +41,10 @@ public class MultiTenantInterceptor implements HandlerInterceptor {
             return null;
         }
         
-        String[] parts = host.split("\\.");
-        if (parts.length > 2) {
-            return parts[0];
+        // Needs at least three labels; avoids a regex split per request
+        int firstDot = host.indexOf('.');
+        if (firstDot > 0 && host.indexOf('.', firstDot + 1) > firstDot + 1) {
+            return host.substring(0, firstDot);
         }
         
         return null;
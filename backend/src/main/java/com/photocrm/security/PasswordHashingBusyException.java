@@ -0,0 +1,9 @@
+package com.photocrm.security;
+
+// Thrown when the password hashing executor is saturated; surfaced to clients as 429
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,98 @@
+package com.photocrm.security;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-user security version embedded in tokens as the "sv" claim. Bumping it invalidates every
+// token issued to that user. Versions live in Redis and are mirrored in a local cache that is
+// invalidated cluster-wide through pub/sub.
+@Component
+public class SecurityVersionService implements MessageListener {
+
+    static final String KEY_PREFIX = "auth:security-version:";
+    static final String CHANNEL = "auth:security-version";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    // Upper bound on staleness if an invalidation message is lost during a reconnect
+    @Value("${app.security.version-cache-ttl:60000}")
+    private long cacheTtlMillis;
+
+    private final Map<UUID, CachedVersion> localVersions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public long currentVersion(UUID userId) {
+        long now = System.currentTimeMillis();
+        CachedVersion cached = localVersions.get(userId);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.version();
+        }
+
+        String value = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+        long version = value != null ? Long.parseLong(value) : 0L;
+        localVersions.put(userId, new CachedVersion(version, now + cacheTtlMillis));
+        return version;
+    }
+
+    public boolean isCurrent(UUID userId, long tokenVersion) {
+        return currentVersion(userId) == tokenVersion;
+    }
+
+    // Invalidates all outstanding tokens for the user once the surrounding transaction commits
+    public void bumpAfterCommit(UUID userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(userId);
+                }
+            });
+        } else {
+            bump(userId);
+        }
+    }
+
+    public void bump(UUID userId) {
+        Long version = redisTemplate.opsForValue().increment(KEY_PREFIX + userId);
+        localVersions.remove(userId);
+        redisTemplate.convertAndSend(CHANNEL, userId.toString());
+        if (version != null) {
+            localVersions.put(userId, new CachedVersion(version, System.currentTimeMillis() + cacheTtlMillis));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            UUID userId = UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8));
+            localVersions.remove(userId);
+        } catch (IllegalArgumentException e) {
+            // Ignore malformed invalidation messages
+        }
+    }
+
+    private record CachedVersion(long version, long expiresAt) {
+    }
+}
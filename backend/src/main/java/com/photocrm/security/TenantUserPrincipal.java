@@ -0,0 +1,95 @@
+package com.photocrm.security;
+
+import com.photocrm.entity.UserEntity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Authenticated user built from verified token claims; carries no credentials
+public class TenantUserPrincipal implements UserDetails {
+
+    private final UUID userId;
+    private final UUID tenantId;
+    private final String email;
+    private final String role;
+    private final long permissionMask;
+    private final List<GrantedAuthority> authorities;
+
+    public TenantUserPrincipal(UUID userId, UUID tenantId, String email, String role, long permissionMask) {
+        this.userId = userId;
+        this.tenantId = tenantId;
+        this.email = email;
+        this.role = role;
+        this.permissionMask = permissionMask;
+        this.authorities = List.of(new SimpleGrantedAuthority(role));
+    }
+
+    public static TenantUserPrincipal fromClaims(JwtClaims claims) {
+        return new TenantUserPrincipal(claims.userId(), claims.tenantId(), claims.subject(), claims.role(),
+                                       claims.permissions());
+    }
+
+    public static TenantUserPrincipal fromUser(UserEntity user) {
+        return new TenantUserPrincipal(user.getId(), user.getTenantId(), user.getEmail(), user.getRole().name(),
+                                       UserEntity.Permission.toMask(user.getPermissions()));
+    }
+
+    public boolean hasPermission(UserEntity.Permission permission) {
+        return (permissionMask & permission.getMask()) != 0;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public UUID getTenantId() {
+        return tenantId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public long getPermissionMask() {
+        return permissionMask;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,200 @@
+package com.photocrm.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Revoked token ids (jti) live in Redis with a TTL equal to the token's remaining lifetime.
+// Each node mirrors them in a Bloom filter so the common not-revoked case never leaves the JVM.
+@Component
+public class TokenRevocationService implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    static final String KEY_PREFIX = "auth:revoked:";
+    static final String CHANNEL = "auth:revocations";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.security.revocation.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${app.security.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile RevokedTokenBloomFilter filter;
+
+    // Filter being rebuilt from Redis; live revocations are applied to it as well
+    private volatile RevokedTokenBloomFilter rebuilding;
+
+    // Serializes apply with the swap in rebuild, so a revocation cannot land only in the discarded filter
+    private final ReentrantLock filterLock = new ReentrantLock();
+
+    private Counter bloomPositives;
+    private Counter falsePositives;
+    private Timer syncLag;
+
+    @PostConstruct
+    public void init() {
+        filter = newFilter();
+
+        bloomPositives = Counter.builder("auth.revocation.bloom.positives")
+            .description("Token checks where the Bloom filter required a Redis confirmation")
+            .register(meterRegistry);
+        falsePositives = Counter.builder("auth.revocation.bloom.false.positives")
+            .description("Bloom filter positives that Redis showed were not revoked")
+            .register(meterRegistry);
+        Gauge.builder("auth.revocation.bloom.observed.fpp", this, service -> service.observedFalsePositiveRate())
+            .description("Observed false-positive share of Bloom filter positives")
+            .register(meterRegistry);
+        Gauge.builder("auth.revocation.bloom.expected.fpp", this, service -> service.filter.expectedFalsePositiveRate())
+            .description("Theoretical false-positive rate at the current fill")
+            .register(meterRegistry);
+        syncLag = Timer.builder("auth.revocation.sync.lag")
+            .description("Delay between a revocation being published and this node applying it")
+            .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        rebuild();
+    }
+
+    public void revoke(JwtClaims claims) {
+        if (claims.tokenId() == null || claims.expiresAt() == null) {
+            return;
+        }
+
+        long remainingMillis = claims.expiresAt().toEpochMilli() - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+            return;
+        }
+
+        redisTemplate.opsForValue().set(KEY_PREFIX + claims.tokenId(), "1", Duration.ofMillis(remainingMillis));
+        apply(claims.tokenId());
+        redisTemplate.convertAndSend(CHANNEL, claims.tokenId() + "|" + System.currentTimeMillis());
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+
+        bloomPositives.increment();
+        try {
+            boolean revoked = Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + tokenId));
+            if (!revoked) {
+                falsePositives.increment();
+            }
+            return revoked;
+        } catch (DataAccessException e) {
+            // The filter says the token may be revoked and we cannot prove otherwise, so fail closed
+            log.warn("Revocation lookup failed for token {}: {}", tokenId, e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        String tokenId = separator >= 0 ? body.substring(0, separator) : body;
+        apply(tokenId);
+
+        if (separator >= 0) {
+            try {
+                long publishedAt = Long.parseLong(body.substring(separator + 1));
+                syncLag.record(Math.max(0, System.currentTimeMillis() - publishedAt), TimeUnit.MILLISECONDS);
+            } catch (NumberFormatException e) {
+                // Lag is informational only
+            }
+        }
+    }
+
+    // Rebuilding sheds ids whose Redis keys have expired, keeping the false-positive rate bounded
+    @Scheduled(fixedDelayString = "${app.security.revocation.rebuild-interval:300000}",
+               initialDelayString = "${app.security.revocation.rebuild-interval:300000}")
+    public void rebuild() {
+        RevokedTokenBloomFilter next = newFilter();
+        setRebuilding(next);
+        boolean complete = false;
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions()
+                .match(KEY_PREFIX + "*")
+                .count(1000)
+                .build())) {
+            while (keys.hasNext()) {
+                next.put(keys.next().substring(KEY_PREFIX.length()));
+            }
+            complete = true;
+        } catch (DataAccessException e) {
+            log.warn("Could not rebuild revoked token filter: {}", e.getMessage());
+        }
+
+        filterLock.lock();
+        try {
+            if (complete) {
+                filter = next;
+            }
+            rebuilding = null;
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    private void setRebuilding(RevokedTokenBloomFilter next) {
+        filterLock.lock();
+        try {
+            rebuilding = next;
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    // Revocations are rare, so taking the lock here costs nothing on the isRevoked path
+    private void apply(String tokenId) {
+        filterLock.lock();
+        try {
+            filter.put(tokenId);
+            if (rebuilding != null) {
+                rebuilding.put(tokenId);
+            }
+        } finally {
+            filterLock.unlock();
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double positives = bloomPositives.count();
+        return positives > 0 ? falsePositives.count() / positives : 0.0;
+    }
+
+    private RevokedTokenBloomFilter newFilter() {
+        return new RevokedTokenBloomFilter(expectedInsertions, falsePositiveRate);
+    }
+}
@@ -0,0 +1,120 @@
+package com.photocrm.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class VerifiedTokenCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    // Keyed by SHA-256 of the token so raw bearer tokens are never held in memory
+    private final Map<String, JwtClaims> entries = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void registerMetrics() {
+        hits = Counter.builder("jwt.verified.cache.requests")
+            .tag("result", "hit")
+            .description("Token verifications answered from the verified-token cache")
+            .register(meterRegistry);
+        misses = Counter.builder("jwt.verified.cache.requests")
+            .tag("result", "miss")
+            .description("Token verifications that required a full signature check")
+            .register(meterRegistry);
+        Gauge.builder("jwt.verified.cache.size", entries, Map::size)
+            .description("Number of verified tokens currently cached")
+            .register(meterRegistry);
+    }
+
+    public JwtClaims get(String token) {
+        if (!enabled) {
+            return null;
+        }
+
+        String key = digest(token);
+        JwtClaims claims = entries.get(key);
+        if (claims == null) {
+            misses.increment();
+            return null;
+        }
+        if (claims.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, claims);
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return claims;
+    }
+
+    public void put(String token, JwtClaims claims) {
+        if (!enabled || claims.expiresAt() == null) {
+            return;
+        }
+
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                evictArbitrary(maxEntries / 10 + 1);
+            }
+        }
+        entries.put(digest(token), claims);
+    }
+
+    public void invalidate(String token) {
+        entries.remove(digest(token));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.cache.purge-interval:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(claims -> claims.isExpired(now));
+    }
+
+    private void evictArbitrary(int count) {
+        // ConcurrentHashMap iteration order is effectively random, which is good enough here
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (count-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,13 +2,16 @@ package com.photocrm.service;
 
 import com.photocrm.config.TenantContext;
 import com.photocrm.entity.UserEntity;
+import com.photocrm.security.JwtClaims;
 import com.photocrm.security.JwtUtil;
+import com.photocrm.security.PasswordHashingBusyException;
+import com.photocrm.security.SecurityVersionService;
+import com.photocrm.security.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -20,35 +23,52 @@ import java.util.UUID;
 @Transactional
 public class AuthService {
 
-    @Autowired
-    private AuthenticationManager authenticationManager;
-
     @Autowired
     private UserService userService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
-    public Map<String, Object> authenticateUser(String email, String password, UUID tenantId) {
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private SecurityVersionService securityVersionService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    private volatile String unknownUserHash;
+
+    // Resolves tenant and user in one query, verifies the password off the request thread and issues
+    // both tokens from that snapshot. Runs outside a transaction so no connection is held during hashing.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> login(String subdomain, String email, String password) {
+        UserEntity user = userService.findLoginCandidate(subdomain, email).orElse(null);
+        if (user == null) {
+            // Spend a comparable hash so unknown accounts cannot be told apart by response time
+            passwordEncoder.matches(password, getUnknownUserHash());
+            throw new BadCredentialsException("Invalid credentials");
+        }
+        if (!passwordEncoder.matches(password, user.getPasswordHash())) {
+            throw new BadCredentialsException("Invalid credentials");
+        }
+
+        UUID tenantId = user.getTenantId();
         try {
             // Set tenant context
             TenantContext.setCurrentTenant(tenantId);
 
-            // Authenticate user
-            Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(email + ":" + tenantId.toString(), password)
-            );
-
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            UserEntity user = userService.findByEmailAndTenantId(email, tenantId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            // Transparently re-hash when the configured BCrypt cost has changed
+            rehashIfNeeded(user, password);
 
             // Update last login
             userService.updateLastLogin(user.getId(), tenantId);
 
             // Generate tokens
-            String accessToken = jwtUtil.generateToken(userDetails, tenantId, user.getRole().name());
-            String refreshToken = jwtUtil.generateRefreshToken(userDetails, tenantId, user.getRole().name());
+            long securityVersion = securityVersionService.currentVersion(user.getId());
+            String accessToken = jwtUtil.generateToken(user, securityVersion);
+            String refreshToken = jwtUtil.generateRefreshToken(user, securityVersion);
 
             // Prepare response
             Map<String, Object> response = new HashMap<>();
@@ -65,13 +85,13 @@ public class AuthService {
     }
 
     public Map<String, Object> refreshToken(String refreshToken) {
-        if (!jwtUtil.validateToken(refreshToken) || !jwtUtil.isRefreshToken(refreshToken)) {
-            throw new RuntimeException("Invalid refresh token");
-        }
+        JwtClaims claims = jwtUtil.verify(refreshToken)
+            .filter(JwtClaims::isRefreshToken)
+            .filter(verified -> !tokenRevocationService.isRevoked(verified.tokenId()))
+            .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
 
-        String email = jwtUtil.extractUsername(refreshToken);
-        UUID tenantId = jwtUtil.extractTenantId(refreshToken);
-        String role = jwtUtil.extractRole(refreshToken);
+        String email = claims.subject();
+        UUID tenantId = claims.tenantId();
 
         try {
             // Set tenant context
@@ -81,16 +101,16 @@ public class AuthService {
             UserEntity user = userService.findByEmailAndTenantId(email, tenantId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-            // Create user details
-            UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPasswordHash())
-                .authorities(role)
-                .build();
+            // Refresh tokens issued before a password, role or status change are no longer honoured
+            long securityVersion = securityVersionService.currentVersion(user.getId());
+            if (claims.securityVersion() != null && claims.securityVersion() != securityVersion) {
+                throw new RuntimeException("Invalid refresh token");
+            }
 
-            // Generate new tokens
-            String newAccessToken = jwtUtil.generateToken(userDetails, tenantId, role);
-            String newRefreshToken = jwtUtil.generateRefreshToken(userDetails, tenantId, role);
+            // Generate new tokens; refresh tokens are single use
+            String newAccessToken = jwtUtil.generateToken(user, securityVersion);
+            String newRefreshToken = jwtUtil.generateRefreshToken(user, securityVersion);
+            tokenRevocationService.revoke(claims);
 
             // Prepare response
             Map<String, Object> response = new HashMap<>();
@@ -106,10 +126,15 @@ public class AuthService {
         }
     }
 
-    public void logout(String authHeader) {
-        // In a stateless JWT implementation, logout is handled client-side
-        // by removing the token from storage
-        // For additional security, you could implement a token blacklist using Redis
+    // Revokes the access token and the session's refresh token for the rest of their lifetimes, so a
+    // copied refresh token cannot mint new access tokens after logout
+    public void logout(String authHeader, String refreshToken) {
+        String token = jwtUtil.getTokenFromHeader(authHeader);
+        jwtUtil.verify(token).ifPresent(tokenRevocationService::revoke);
+        // Holding the refresh token is enough to use it, so it is also enough to revoke it
+        jwtUtil.verify(refreshToken)
+            .filter(JwtClaims::isRefreshToken)
+            .ifPresent(tokenRevocationService::revoke);
     }
 
     public void sendPasswordResetEmail(String email, String subdomain) {
@@ -130,6 +155,26 @@ public class AuthService {
         throw new RuntimeException("Password reset functionality not implemented");
     }
 
+    private String getUnknownUserHash() {
+        String hash = unknownUserHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode(UUID.randomUUID().toString());
+            unknownUserHash = hash;
+        }
+        return hash;
+    }
+
+    private void rehashIfNeeded(UserEntity user, String password) {
+        if (!passwordEncoder.upgradeEncoding(user.getPasswordHash())) {
+            return;
+        }
+        try {
+            userService.updatePasswordHash(user.getId(), user.getTenantId(), passwordEncoder.encode(password));
+        } catch (PasswordHashingBusyException e) {
+            // Best effort; the next login will try again
+        }
+    }
+
     private Map<String, Object> createUserResponse(UserEntity user) {
         Map<String, Object> userResponse = new HashMap<>();
         userResponse.put("id", user.getId());
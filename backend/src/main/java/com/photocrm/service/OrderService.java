@@ -72,47 +72,72 @@ public class OrderService {
         orderRepository.save(order);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderEntity> getOrdersByTenant(UUID tenantId) {
         return orderRepository.findByTenantIdAndIsActiveTrue(tenantId);
     }
 
+    @Transactional(readOnly = true)
     public Page<OrderEntity> getOrdersByTenant(UUID tenantId, Pageable pageable) {
         return orderRepository.findByTenantIdAndIsActiveTrue(tenantId, pageable);
     }
 
+    // Seek pagination, newest first; the exact count is only run when the caller asks for it
+    @Transactional(readOnly = true)
+    public SeekPage<OrderEntity> getOrdersPage(UUID tenantId, String cursor, int limit, boolean includeCount) {
+        List<OrderEntity> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = orderRepository.findOrderPage(tenantId, limit + 1);
+        } else {
+            KeysetCursor before = KeysetCursor.decode(cursor);
+            rows = orderRepository.findOrderPageBefore(tenantId, before.timestamp(), before.id(), limit + 1);
+        }
+        Long total = includeCount ? orderRepository.countActiveOrdersByTenant(tenantId) : null;
+        return SeekPage.of(rows, limit, order -> new KeysetCursor(order.getCreatedAt(), order.getId()), total);
+    }
+
+    @Transactional(readOnly = true)
     public List<OrderEntity> getOrdersByTenantAndStatus(UUID tenantId, OrderEntity.OrderStatus status) {
         return orderRepository.findByTenantIdAndStatusAndIsActiveTrue(tenantId, status);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderEntity> getOrdersByClient(UUID tenantId, UUID clientId) {
         return orderRepository.findByTenantIdAndClientIdAndIsActiveTrue(tenantId, clientId);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderEntity> getOrdersByPhotographer(UUID tenantId, UUID photographerId) {
         return orderRepository.findByTenantIdAndPhotographerIdAndIsActiveTrue(tenantId, photographerId);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderEntity> getOrdersByDateRange(UUID tenantId, LocalDate startDate, LocalDate endDate) {
         return orderRepository.findOrdersByTenantAndDateRange(tenantId, startDate, endDate);
     }
 
+    @Transactional(readOnly = true)
     public OrderEntity getOrderByIdAndTenant(UUID orderId, UUID tenantId) {
         return orderRepository.findByIdAndTenantIdAndIsActiveTrue(orderId, tenantId)
             .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
+    @Transactional(readOnly = true)
     public long countOrdersByTenant(UUID tenantId) {
         return orderRepository.countActiveOrdersByTenant(tenantId);
     }
 
+    @Transactional(readOnly = true)
     public long countOrdersByTenantAndStatus(UUID tenantId, OrderEntity.OrderStatus status) {
         return orderRepository.countActiveOrdersByTenantAndStatus(tenantId, status);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderEntity> getRecentOrdersByTenant(UUID tenantId, Pageable pageable) {
         return orderRepository.findRecentOrdersByTenant(tenantId, pageable);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderEntity> getTopOrdersByRevenue(UUID tenantId, Pageable pageable) {
         return orderRepository.findTopOrdersByRevenue(tenantId, pageable);
     }
@@ -0,0 +1,51 @@
+package com.photocrm.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+// Reads the per-order photo aggregates that database triggers keep in order_photo_summaries, and
+// rebuilds them from the photos table when they need checking
+@Service
+@Transactional
+public class OrderSummaryService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Orders without photos have no row yet and read as all zeros
+    @Transactional(readOnly = true)
+    public OrderPhotoSummary getSummary(UUID tenantId, UUID orderId) {
+        List<OrderPhotoSummary> rows = jdbcTemplate.query(
+            "SELECT photo_count, selected_count, selected_total, total_bytes FROM order_photo_summaries " +
+            "WHERE order_id = ? AND tenant_id = ?",
+            (rs, rowNum) -> new OrderPhotoSummary(
+                orderId, rs.getInt("photo_count"), rs.getInt("selected_count"),
+                rs.getBigDecimal("selected_total"), rs.getLong("total_bytes")),
+            orderId, tenantId);
+        return rows.isEmpty() ? OrderPhotoSummary.empty(orderId) : rows.get(0);
+    }
+
+    // Returns how many summaries were missing or had drifted from the photos they describe
+    public int rebuild(UUID tenantId, UUID orderId) {
+        jdbcTemplate.queryForObject("SELECT set_tenant_context(?)", Object.class, tenantId);
+        return jdbcTemplate.queryForObject("SELECT rebuild_order_photo_summaries(?, ?)", Integer.class, tenantId, orderId);
+    }
+
+    public int rebuildAll(UUID tenantId) {
+        return rebuild(tenantId, null);
+    }
+
+    public record OrderPhotoSummary(UUID orderId, int photoCount, int selectedCount, BigDecimal selectedTotal,
+                                    long totalBytes) {
+
+        static OrderPhotoSummary empty(UUID orderId) {
+            return new OrderPhotoSummary(orderId, 0, 0, BigDecimal.ZERO, 0);
+        }
+    }
+}
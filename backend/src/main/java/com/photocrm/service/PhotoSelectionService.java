@@ -0,0 +1,118 @@
+package com.photocrm.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+// Applies a client's gallery selection as a set: one UPDATE for the photos leaving the selection,
+// one for the photos in it (ordered by their position in the request) and the matching
+// photo_selections rows; totals come from the order's summary row. Cost does not grow in queries
+// with selection size.
+@Service
+@Transactional
+public class PhotoSelectionService {
+
+    private static final BigDecimal TAX_RATE = new BigDecimal("0.10");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Adds the photos to the order's selection, in the given order
+    public SelectionSummary select(UUID tenantId, UUID orderId, List<UUID> photoIds) {
+        return apply(tenantId, orderId, photoIds, false);
+    }
+
+    // Makes the given photos the order's entire selection
+    public SelectionSummary replaceSelection(UUID tenantId, UUID orderId, List<UUID> photoIds) {
+        return apply(tenantId, orderId, photoIds, true);
+    }
+
+    // Selects or deselects a single photo at an explicit position, with its photo_selections row
+    public void setSelected(UUID tenantId, UUID photoId, boolean selected, Integer selectionOrder) {
+        jdbcTemplate.queryForObject("SELECT set_tenant_context(?)", Object.class, tenantId);
+
+        List<UUID> orderIds = jdbcTemplate.queryForList(
+            "UPDATE photos SET is_selected = ?, selection_order = ?, updated_at = now() " +
+            "WHERE id = ? AND tenant_id = ? AND is_active RETURNING order_id",
+            UUID.class, selected, selected ? selectionOrder : null, photoId, tenantId);
+        if (orderIds.isEmpty()) {
+            throw new RuntimeException("Photo not found");
+        }
+
+        if (selected) {
+            jdbcTemplate.update(
+                "INSERT INTO photo_selections (tenant_id, order_id, photo_id) VALUES (?, ?, ?) " +
+                "ON CONFLICT (order_id, photo_id) DO NOTHING",
+                tenantId, orderIds.get(0), photoId);
+        } else {
+            jdbcTemplate.update(
+                "DELETE FROM photo_selections WHERE tenant_id = ? AND photo_id = ?",
+                tenantId, photoId);
+        }
+    }
+
+    private SelectionSummary apply(UUID tenantId, UUID orderId, List<UUID> photoIds, boolean replace) {
+        List<UUID> ids = photoIds != null ? new ArrayList<>(new LinkedHashSet<>(photoIds)) : List.of();
+        String idArray = uuidArray(ids);
+
+        // Plain JDBC on the transaction's connection; scope it to the tenant for row level security
+        jdbcTemplate.queryForObject("SELECT set_tenant_context(?)", Object.class, tenantId);
+
+        if (replace) {
+            jdbcTemplate.update(
+                "UPDATE photos SET is_selected = false, selection_order = NULL, updated_at = now() " +
+                "WHERE tenant_id = ? AND order_id = ? AND is_selected AND NOT (id = ANY(?::uuid[]))",
+                tenantId, orderId, idArray);
+            jdbcTemplate.update(
+                "DELETE FROM photo_selections WHERE tenant_id = ? AND order_id = ? AND NOT (photo_id = ANY(?::uuid[]))",
+                tenantId, orderId, idArray);
+        }
+
+        if (!ids.isEmpty()) {
+            int updated = jdbcTemplate.update(
+                "UPDATE photos AS p SET is_selected = true, selection_order = s.ord, updated_at = now() " +
+                "FROM unnest(?::uuid[]) WITH ORDINALITY AS s(id, ord) " +
+                "WHERE p.id = s.id AND p.tenant_id = ? AND p.order_id = ? AND p.is_active",
+                idArray, tenantId, orderId);
+            if (updated != ids.size()) {
+                throw new RuntimeException("Photo not found");
+            }
+
+            jdbcTemplate.update(
+                "INSERT INTO photo_selections (tenant_id, order_id, photo_id) " +
+                "SELECT ?, ?, s.id FROM unnest(?::uuid[]) AS s(id) " +
+                "ON CONFLICT (order_id, photo_id) DO NOTHING",
+                tenantId, orderId, idArray);
+        }
+
+        // The photo triggers have already folded these statements into order_photo_summaries
+        return jdbcTemplate.query(
+                "SELECT selected_count, selected_total, round(selected_total * ?, 2) AS tax " +
+                "FROM order_photo_summaries WHERE order_id = ? AND tenant_id = ?",
+                (rs, rowNum) -> new SelectionSummary(
+                    rs.getInt("selected_count"), rs.getBigDecimal("selected_total"), rs.getBigDecimal("tax"),
+                    rs.getBigDecimal("selected_total").add(rs.getBigDecimal("tax"))),
+                TAX_RATE, orderId, tenantId)
+            .stream()
+            .findFirst()
+            .orElse(new SelectionSummary(0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+    }
+
+    // Postgres array literal; UUIDs need no quoting, and an empty list matches nothing
+    private static String uuidArray(List<UUID> ids) {
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        ids.forEach(id -> joiner.add(id.toString()));
+        return joiner.toString();
+    }
+
+    public record SelectionSummary(int selectedCount, BigDecimal totalAmount, BigDecimal tax, BigDecimal finalAmount) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.photocrm.service;
 
 import com.photocrm.entity.PhotoEntity;
+import com.photocrm.repository.GalleryPhotoView;
 import com.photocrm.repository.PhotoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -10,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -24,15 +26,53 @@ public class PhotoService {
     @Autowired
     private S3Service s3Service;
 
+    @Autowired
+    private QuotaService quotaService;
+
+    @Autowired
+    private RenditionService renditionService;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private S3DeletionService s3DeletionService;
+
+    @Autowired
+    private PhotoSelectionService photoSelectionService;
+
     public PhotoEntity uploadPhoto(UUID tenantId, UUID orderId, String filename, String originalUrl, 
                                  String thumbnailUrl, Long fileSize, String mimeType) {
-        PhotoEntity photo = new PhotoEntity(tenantId, orderId, filename, originalUrl, thumbnailUrl, fileSize, mimeType);
-        return photoRepository.save(photo);
+        quotaService.reserve(tenantId, QuotaService.Resource.PHOTOS, 1);
+        return savePhoto(tenantId, orderId, filename, originalUrl, thumbnailUrl, fileSize, mimeType);
+    }
+
+    // Records an upload whose quota was held before its body was stored
+    public PhotoEntity uploadPhoto(UUID tenantId, UUID orderId, String filename, String originalUrl,
+                                   String thumbnailUrl, Long fileSize, String mimeType,
+                                   QuotaService.Reservation reservation) {
+        reservation.claim();
+        return savePhoto(tenantId, orderId, filename, originalUrl, thumbnailUrl, fileSize, mimeType);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isOriginalInUse(UUID tenantId, String originalUrl) {
+        return photoRepository.existsByTenantIdAndOriginalUrlAndIsActiveTrue(tenantId, originalUrl);
+    }
+
+    private PhotoEntity savePhoto(UUID tenantId, UUID orderId, String filename, String originalUrl,
+                                  String thumbnailUrl, Long fileSize, String mimeType) {
+        PhotoEntity photo = photoRepository.save(
+            new PhotoEntity(tenantId, orderId, filename, originalUrl, thumbnailUrl, fileSize, mimeType));
+        renditionService.renderAfterCommit(List.of(photo));
+        return photo;
     }
 
     public List<PhotoEntity> batchUploadPhotos(UUID tenantId, UUID orderId, List<PhotoUploadRequest> photos) {
-        return photos.stream()
-            .map(photoRequest -> uploadPhoto(
+        // Reserve the whole batch up front so a batch is either admitted or rejected as a unit
+        quotaService.reserve(tenantId, QuotaService.Resource.PHOTOS, photos.size());
+        List<PhotoEntity> saved = photoRepository.insertAll(tenantId, photos.stream()
+            .map(photoRequest -> new PhotoEntity(
                 tenantId, 
                 orderId, 
                 photoRequest.getFilename(), 
@@ -41,7 +81,9 @@ public class PhotoService {
                 photoRequest.getFileSize(), 
                 photoRequest.getMimeType()
             ))
-            .toList();
+            .toList());
+        renditionService.renderAfterCommit(saved);
+        return saved;
     }
 
     public PhotoEntity updatePhoto(UUID photoId, UUID tenantId, String filename, BigDecimal price) {
@@ -55,84 +97,110 @@ public class PhotoService {
     }
 
     public void selectPhoto(UUID photoId, UUID tenantId, Integer selectionOrder) {
-        PhotoEntity photo = photoRepository.findByIdAndTenantIdAndIsActiveTrue(photoId, tenantId)
-            .orElseThrow(() -> new RuntimeException("Photo not found"));
-
-        photo.setIsSelected(true);
-        photo.setSelectionOrder(selectionOrder);
-
-        photoRepository.save(photo);
+        photoSelectionService.setSelected(tenantId, photoId, true, selectionOrder);
     }
 
     public void deselectPhoto(UUID photoId, UUID tenantId) {
-        PhotoEntity photo = photoRepository.findByIdAndTenantIdAndIsActiveTrue(photoId, tenantId)
-            .orElseThrow(() -> new RuntimeException("Photo not found"));
-
-        photo.setIsSelected(false);
-        photo.setSelectionOrder(null);
-
-        photoRepository.save(photo);
+        photoSelectionService.setSelected(tenantId, photoId, false, null);
     }
 
     public void updatePhotoSelection(UUID photoId, UUID tenantId, boolean isSelected, Integer selectionOrder) {
-        PhotoEntity photo = photoRepository.findByIdAndTenantIdAndIsActiveTrue(photoId, tenantId)
-            .orElseThrow(() -> new RuntimeException("Photo not found"));
-
-        photo.setIsSelected(isSelected);
-        photo.setSelectionOrder(isSelected ? selectionOrder : null);
-
-        photoRepository.save(photo);
+        photoSelectionService.setSelected(tenantId, photoId, isSelected, selectionOrder);
     }
 
+    @Transactional(readOnly = true)
     public List<PhotoEntity> getPhotosByOrder(UUID orderId) {
         return photoRepository.findByOrderIdAndIsActiveTrue(orderId);
     }
 
+    @Transactional(readOnly = true)
     public List<PhotoEntity> getPhotosByTenantAndOrder(UUID tenantId, UUID orderId) {
         return photoRepository.findByTenantIdAndOrderIdAndIsActiveTrue(tenantId, orderId);
     }
 
+    @Transactional(readOnly = true)
     public List<PhotoEntity> getSelectedPhotosByOrder(UUID orderId) {
         return photoRepository.findByOrderIdAndIsSelectedTrue(orderId);
     }
 
+    @Transactional(readOnly = true)
     public List<PhotoEntity> getSelectedPhotosByTenantAndOrder(UUID tenantId, UUID orderId) {
         return photoRepository.findByTenantIdAndOrderIdAndIsSelectedTrue(tenantId, orderId);
     }
 
+    @Transactional(readOnly = true)
     public Page<PhotoEntity> getPhotosByTenantAndOrder(UUID tenantId, UUID orderId, Pageable pageable) {
         return photoRepository.findPhotosByTenantAndOrder(tenantId, orderId, pageable);
     }
 
+    // Keyset page of the public gallery; cost is independent of how deep the client has scrolled
+    @Transactional(readOnly = true)
+    public GalleryPage getGalleryPage(UUID orderId, String cursor, int limit) {
+        // Fetch one extra row to learn whether another page follows
+        List<GalleryPhotoView> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = photoRepository.findGalleryPage(orderId, limit + 1);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = photoRepository.findGalleryPageAfter(orderId, after.timestamp(), after.id(), limit + 1);
+        }
+
+        SeekPage<GalleryPhotoView> page =
+            SeekPage.of(rows, limit, photo -> new KeysetCursor(photo.getUploadedAt(), photo.getId()), null);
+        return new GalleryPage(page.items(), page.nextCursor());
+    }
+
+    // Seek pagination over an order's photos; deep pages cost the same as the first
+    @Transactional(readOnly = true)
+    public SeekPage<PhotoEntity> getPhotosPage(UUID tenantId, UUID orderId, String cursor, int limit, boolean includeCount) {
+        List<PhotoEntity> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = photoRepository.findPhotoPage(tenantId, orderId, limit + 1);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = photoRepository.findPhotoPageAfter(tenantId, orderId, after.timestamp(), after.id(), limit + 1);
+        }
+        Long total = includeCount ? (long) orderSummaryService.getSummary(tenantId, orderId).photoCount() : null;
+        return SeekPage.of(rows, limit, photo -> new KeysetCursor(photo.getUploadedAt(), photo.getId()), total);
+    }
+
+    @Transactional(readOnly = true)
     public PhotoEntity getPhotoByIdAndTenant(UUID photoId, UUID tenantId) {
         return photoRepository.findByIdAndTenantIdAndIsActiveTrue(photoId, tenantId)
             .orElseThrow(() -> new RuntimeException("Photo not found"));
     }
 
+    @Transactional(readOnly = true)
     public long countPhotosByTenant(UUID tenantId) {
         return photoRepository.countActivePhotosByTenant(tenantId);
     }
 
+    @Transactional(readOnly = true)
     public long countPhotosByTenantAndOrder(UUID tenantId, UUID orderId) {
-        return photoRepository.countActivePhotosByTenantAndOrder(tenantId, orderId);
+        return orderSummaryService.getSummary(tenantId, orderId).photoCount();
     }
 
+    @Transactional(readOnly = true)
     public long countSelectedPhotosByTenant(UUID tenantId) {
         return photoRepository.countSelectedPhotosByTenant(tenantId);
     }
 
+    @Transactional(readOnly = true)
     public long countSelectedPhotosByTenantAndOrder(UUID tenantId, UUID orderId) {
-        return photoRepository.countSelectedPhotosByTenantAndOrder(tenantId, orderId);
+        return orderSummaryService.getSummary(tenantId, orderId).selectedCount();
     }
 
+    @Transactional(readOnly = true)
     public Long getTotalFileSizeByTenant(UUID tenantId) {
         return photoRepository.sumFileSizeByTenant(tenantId);
     }
 
+    @Transactional(readOnly = true)
     public Long getTotalFileSizeByTenantAndOrder(UUID tenantId, UUID orderId) {
-        return photoRepository.sumFileSizeByTenantAndOrder(tenantId, orderId);
+        return orderSummaryService.getSummary(tenantId, orderId).totalBytes();
     }
 
+    @Transactional(readOnly = true)
     public List<PhotoEntity> getRecentPhotosByTenant(UUID tenantId, Pageable pageable) {
         return photoRepository.findRecentPhotosByTenant(tenantId, pageable);
     }
@@ -141,26 +209,28 @@ public class PhotoService {
         PhotoEntity photo = photoRepository.findByIdAndTenantIdAndIsActiveTrue(photoId, tenantId)
             .orElseThrow(() -> new RuntimeException("Photo not found"));
 
-        // Delete from S3
-        s3Service.deleteFile(photo.getOriginalUrl());
-        s3Service.deleteFile(photo.getThumbnailUrl());
-        if (photo.getPreviewUrl() != null) {
-            s3Service.deleteFile(photo.getPreviewUrl());
-        }
+        // Objects are removed by the deletion worker once this transaction commits
+        s3DeletionService.enqueue(tenantId, Arrays.asList(
+            photo.getOriginalUrl(), photo.getThumbnailUrl(), photo.getPreviewUrl()));
 
         photo.setIsActive(false);
         photoRepository.save(photo);
+        quotaService.release(tenantId, QuotaService.Resource.PHOTOS, 1);
     }
 
     public String generatePresignedUploadUrl(UUID tenantId, UUID orderId, String filename, String mimeType) {
         return s3Service.generatePresignedUploadUrl(tenantId, orderId, filename, mimeType);
     }
 
+    @Transactional(readOnly = true)
     public String generatePresignedDownloadUrl(UUID photoId, UUID tenantId) {
         PhotoEntity photo = getPhotoByIdAndTenant(photoId, tenantId);
         return s3Service.generatePresignedDownloadUrl(photo.getOriginalUrl());
     }
 
+    public record GalleryPage(List<GalleryPhotoView> photos, String nextCursor) {
+    }
+
     // Inner class for photo upload requests
     public static class PhotoUploadRequest {
         private String filename;
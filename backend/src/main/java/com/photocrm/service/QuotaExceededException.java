@@ -0,0 +1,9 @@
+package com.photocrm.service;
+
+// Thrown when a create would take a tenant past its subscription plan limit
+public class QuotaExceededException extends RuntimeException {
+
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,232 @@
+package com.photocrm.service;
+
+import com.photocrm.config.ReplicaRoutingDataSource;
+import com.photocrm.config.TenantContext;
+import com.photocrm.entity.TenantEntity;
+import com.photocrm.repository.PhotoRepository;
+import com.photocrm.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+// Enforces plan limits on photos and users with per-tenant counters held in memory. Counters are
+// seeded once from the count queries, moved atomically as rows are created and deleted, and
+// periodically reconciled against the database. Checks are O(1) and never run a count on the
+// request path after the first one for a tenant.
+@Component
+public class QuotaService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuotaService.class);
+
+    public enum Resource {
+        PHOTOS("photos"),
+        USERS("users");
+
+        private final String label;
+
+        Resource(String label) {
+            this.label = label;
+        }
+
+        long limit(TenantEntity.SubscriptionPlan plan) {
+            return this == PHOTOS ? plan.getMaxPhotos() : plan.getMaxUsers();
+        }
+    }
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TenantDirectory tenantDirectory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<UUID, TenantUsage> usage = new ConcurrentHashMap<>();
+
+    // Reserves room for count new rows, failing fast if the plan does not allow them. The reservation
+    // is handed back if the surrounding transaction rolls back.
+    public void reserve(UUID tenantId, Resource resource, int count) {
+        if (count <= 0) {
+            return;
+        }
+        settleWithTransaction(take(tenantId, resource, count), count);
+    }
+
+    // Reserves room ahead of a transaction, e.g. before streaming an upload body. The caller must either
+    // hand the reservation to a transaction with claim() or give it back with close().
+    public Reservation hold(UUID tenantId, Resource resource, int count) {
+        return new Reservation(take(tenantId, resource, count), count);
+    }
+
+    private UsageCounter take(UUID tenantId, Resource resource, int count) {
+        TenantEntity.SubscriptionPlan plan = tenantDirectory.findById(tenantId)
+            .map(TenantDirectory.TenantRef::plan)
+            .orElseThrow(() -> new RuntimeException("Tenant not found"));
+        long limit = resource.limit(plan);
+
+        UsageCounter counter = usageFor(tenantId).counter(resource);
+        while (true) {
+            long current = counter.used.get();
+            if (current + count > limit) {
+                meterRegistry.counter("quota.rejections", "resource", resource.label).increment();
+                throw new QuotaExceededException("The " + plan.getDisplayName() + " plan allows " + limit + " " +
+                    resource.label + "; " + current + " in use, " + count + " requested");
+            }
+            if (counter.used.compareAndSet(current, current + count)) {
+                break;
+            }
+        }
+        counter.pending.addAndGet(count);
+        return counter;
+    }
+
+    private static void settleWithTransaction(UsageCounter counter, int count) {
+        afterCompletion(committed -> {
+            counter.pending.addAndGet(-count);
+            if (!committed) {
+                counter.used.addAndGet(-count);
+            }
+        });
+    }
+
+    // Gives back capacity once the delete has committed
+    public void release(UUID tenantId, Resource resource, int count) {
+        TenantUsage tenantUsage = usage.get(tenantId);
+        if (tenantUsage == null || count <= 0) {
+            return;
+        }
+        UsageCounter counter = tenantUsage.counter(resource);
+        afterCompletion(committed -> {
+            if (committed) {
+                counter.used.accumulateAndGet(count, (current, released) -> Math.max(0, current - released));
+            }
+        });
+    }
+
+    // Corrects drift from writes on other nodes or paths that bypass the service
+    @Scheduled(fixedDelayString = "${app.quota.reconcile-interval:300000}",
+               initialDelayString = "${app.quota.reconcile-interval:300000}")
+    public void reconcile() {
+        for (Map.Entry<UUID, TenantUsage> entry : usage.entrySet()) {
+            try {
+                UUID tenantId = entry.getKey();
+                TenantUsage tenantUsage = entry.getValue();
+                tenantUsage.photos.reset(count(tenantId, photoRepository::countActivePhotosByTenant));
+                tenantUsage.users.reset(count(tenantId, userRepository::countActiveUsersByTenant));
+            } catch (DataAccessException e) {
+                log.warn("Could not reconcile quota for tenant {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private TenantUsage usageFor(UUID tenantId) {
+        TenantUsage existing = usage.get(tenantId);
+        if (existing != null) {
+            return existing;
+        }
+
+        // Seed outside the map so the count queries never run under a map lock
+        TenantUsage seeded = new TenantUsage(
+            count(tenantId, photoRepository::countActivePhotosByTenant),
+            count(tenantId, userRepository::countActiveUsersByTenant));
+        TenantUsage raced = usage.putIfAbsent(tenantId, seeded);
+        return raced != null ? raced : seeded;
+    }
+
+    private long count(UUID tenantId, ToLongFunction<UUID> query) {
+        return ReplicaRoutingDataSource.onPrimary(() ->
+            TenantContext.callAsTenant(tenantId, () -> query.applyAsLong(tenantId)));
+    }
+
+    private static void afterCompletion(CompletionCallback callback) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    callback.completed(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            callback.completed(true);
+        }
+    }
+
+    // Room held outside a transaction; exactly one of claim() or close() takes effect
+    public static final class Reservation implements AutoCloseable {
+
+        private final UsageCounter counter;
+        private final int count;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Reservation(UsageCounter counter, int count) {
+            this.counter = counter;
+            this.count = count;
+        }
+
+        // Ties the reservation to the current transaction, which keeps it on commit
+        public void claim() {
+            if (settled.compareAndSet(false, true)) {
+                settleWithTransaction(counter, count);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (settled.compareAndSet(false, true)) {
+                counter.pending.addAndGet(-count);
+                counter.used.addAndGet(-count);
+            }
+        }
+    }
+
+    private interface CompletionCallback {
+        void completed(boolean committed);
+    }
+
+    private static final class TenantUsage {
+
+        private final UsageCounter photos;
+        private final UsageCounter users;
+
+        private TenantUsage(long photos, long users) {
+            this.photos = new UsageCounter(photos);
+            this.users = new UsageCounter(users);
+        }
+
+        private UsageCounter counter(Resource resource) {
+            return resource == Resource.PHOTOS ? photos : users;
+        }
+    }
+
+    private static final class UsageCounter {
+
+        private final AtomicLong used;
+        // Reserved by transactions that have not finished yet and so are not visible to a recount
+        private final AtomicLong pending = new AtomicLong();
+
+        private UsageCounter(long used) {
+            this.used = new AtomicLong(used);
+        }
+
+        private void reset(long committed) {
+            used.set(committed + pending.get());
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.photocrm.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.photocrm.config.TenantContext;
+import com.photocrm.entity.PhotoEntity;
+import com.photocrm.repository.PhotoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import net.coobird.thumbnailator.Thumbnails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+// Generates the thumbnail and preview for every original uploaded under .../original/. Jobs run on
+// the rendition executor, one per core by default. Each job also reserves its decoded image size from
+// a heap budget, so a large batch is processed in parallel without risking an OutOfMemoryError.
+// Jobs refused by a full queue or lost to a restart are picked up again by a periodic sweep.
+@Service
+public class RenditionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RenditionService.class);
+
+    private static final int MEGABYTE = 1024 * 1024;
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    @Qualifier("renditionExecutor")
+    private AsyncTaskExecutor renditionExecutor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.bucket-name:photocrm-photos}")
+    private String bucketName;
+
+    @Value("${app.photo.thumbnail.width:300}")
+    private int thumbnailWidth;
+
+    @Value("${app.photo.thumbnail.height:300}")
+    private int thumbnailHeight;
+
+    @Value("${app.photo.thumbnail.quality:0.8}")
+    private double thumbnailQuality;
+
+    @Value("${app.photo.preview.max-dimension:1600}")
+    private int previewMaxDimension;
+
+    @Value("${app.photo.preview.quality:0.85}")
+    private double previewQuality;
+
+    // Share of the maximum heap that decoded images in flight may occupy
+    @Value("${app.photo.renditions.heap-fraction:0.25}")
+    private double heapFraction;
+
+    // Leaves recent uploads to the jobs already queued for them
+    @Value("${app.photo.renditions.sweep-grace:600000}")
+    private long sweepGraceMillis;
+
+    // Photos older than this are no longer retried, so a broken original is not rendered forever
+    @Value("${app.photo.renditions.sweep-max-age:86400000}")
+    private long sweepMaxAgeMillis;
+
+    @Value("${app.photo.renditions.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Semaphore heapBudget;
+    private int heapBudgetMegabytes;
+    private TransactionTemplate transactionTemplate;
+    private Timer renderTimer;
+    private Counter failures;
+
+    @PostConstruct
+    public void init() {
+        heapBudgetMegabytes = (int) Math.max(64, Runtime.getRuntime().maxMemory() * heapFraction / MEGABYTE);
+        heapBudget = new Semaphore(heapBudgetMegabytes, true);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        renderTimer = Timer.builder("photo.rendition.duration")
+            .description("Time to download, render and upload the renditions of one photo")
+            .register(meterRegistry);
+        failures = Counter.builder("photo.rendition.failures")
+            .description("Photos whose renditions could not be generated")
+            .register(meterRegistry);
+    }
+
+    // Queues rendition jobs once the photos are committed, so workers always find their rows
+    public void renderAfterCommit(List<PhotoEntity> photos) {
+        List<RenditionJob> jobs = photos.stream()
+            .filter(photo -> photo.getOriginalUrl() != null && photo.getOriginalUrl().contains("/original/"))
+            .map(photo -> new RenditionJob(photo.getId(), photo.getTenantId(), photo.getOriginalUrl()))
+            .toList();
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    jobs.forEach(RenditionService.this::submit);
+                }
+            });
+        } else {
+            jobs.forEach(this::submit);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.photo.renditions.sweep-interval:600000}",
+               initialDelayString = "${app.photo.renditions.sweep-interval:600000}")
+    public void resubmitMissing() {
+        List<RenditionJob> jobs;
+        try {
+            jobs = transactionTemplate.execute(status -> jdbcTemplate.query(
+                "SELECT id, tenant_id, original_url FROM find_photos_missing_renditions(?, ?, ?)",
+                (rs, rowNum) -> new RenditionJob(
+                    rs.getObject("id", UUID.class), rs.getObject("tenant_id", UUID.class), rs.getString("original_url")),
+                sweepGraceMillis, sweepMaxAgeMillis, sweepBatchSize));
+        } catch (DataAccessException e) {
+            log.warn("Could not look up photos missing renditions: {}", e.getMessage());
+            return;
+        }
+
+        int resubmitted = 0;
+        for (RenditionJob job : jobs) {
+            if (!submit(job)) {
+                break;
+            }
+            resubmitted++;
+        }
+        if (resubmitted > 0) {
+            log.info("Resubmitted rendition jobs for {} photos", resubmitted);
+        }
+    }
+
+    private boolean submit(RenditionJob job) {
+        try {
+            renditionExecutor.execute(() -> renderTimer.record(() -> render(job)));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Rendition queue is full, leaving photo {} to the next sweep", job.photoId());
+            return false;
+        }
+    }
+
+    private void render(RenditionJob job) {
+        String thumbnailKey = job.originalKey().replace("/original/", "/thumbnail/");
+        String previewKey = job.originalKey().replace("/original/", "/preview/");
+
+        try {
+            Renditions renditions = renderFromS3(job.originalKey());
+            upload(thumbnailKey, renditions.thumbnail());
+            upload(previewKey, renditions.preview());
+            TenantContext.runAsTenant(job.tenantId(), () -> transactionTemplate.executeWithoutResult(status ->
+                recordRenditions(job, thumbnailKey, previewKey, renditions.width(), renditions.height())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("Could not generate renditions for photo {}: {}", job.photoId(), e.getMessage());
+        }
+    }
+
+    private Renditions renderFromS3(String originalKey) throws IOException, InterruptedException {
+        GetObjectRequest request = GetObjectRequest.builder()
+            .bucket(bucketName)
+            .key(originalKey)
+            .build();
+
+        try (ResponseInputStream<GetObjectResponse> object = s3Client.getObject(request);
+             ImageInputStream input = ImageIO.createImageInputStream(object)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // Decode straight to roughly preview size; only the subsampled raster is ever in memory
+                int subsampling = Math.max(1, Math.max(width, height) / previewMaxDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+                long decodedBytes = 4L * ((width + subsampling - 1) / subsampling) * ((height + subsampling - 1) / subsampling);
+                int permits = (int) Math.min(heapBudgetMegabytes, decodedBytes / MEGABYTE + 1);
+                heapBudget.acquire(permits);
+                try {
+                    BufferedImage image = flattenAlpha(reader.read(0, param));
+                    byte[] preview = encode(image, previewMaxDimension, previewMaxDimension, previewQuality);
+                    byte[] thumbnail = encode(image, thumbnailWidth, thumbnailHeight, thumbnailQuality);
+                    return new Renditions(thumbnail, preview, width, height);
+                } finally {
+                    heapBudget.release(permits);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private byte[] encode(BufferedImage image, int width, int height, double quality) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Thumbnails.of(image)
+            .size(width, height)
+            .outputFormat("jpg")
+            .outputQuality(quality)
+            .toOutputStream(output);
+        return output.toByteArray();
+    }
+
+    // JPEG has no alpha channel; composite transparent images onto white before encoding
+    private static BufferedImage flattenAlpha(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage flattened = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = flattened.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return flattened;
+    }
+
+    private void upload(String key, byte[] content) {
+        PutObjectRequest request = PutObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .contentType("image/jpeg")
+            .build();
+        s3Client.putObject(request, RequestBody.fromBytes(content));
+    }
+
+    private void recordRenditions(RenditionJob job, String thumbnailKey, String previewKey, int width, int height) {
+        PhotoEntity photo = photoRepository.findByIdAndTenantIdAndIsActiveTrue(job.photoId(), job.tenantId())
+            .orElse(null);
+        if (photo == null) {
+            // Deleted while rendering
+            return;
+        }
+
+        photo.setThumbnailUrl(thumbnailKey);
+        photo.setPreviewUrl(previewKey);
+        photo.setMetadata(withDimensions(photo.getMetadata(), width, height));
+        photoRepository.save(photo);
+    }
+
+    private String withDimensions(String metadata, int width, int height) {
+        ObjectNode node;
+        try {
+            JsonNode existing = metadata != null ? objectMapper.readTree(metadata) : null;
+            node = existing instanceof ObjectNode object ? object : objectMapper.createObjectNode();
+        } catch (IOException e) {
+            node = objectMapper.createObjectNode();
+        }
+        node.put("width", width);
+        node.put("height", height);
+        return node.toString();
+    }
+
+    private record RenditionJob(UUID photoId, UUID tenantId, String originalKey) {
+    }
+
+    private record Renditions(byte[] thumbnail, byte[] preview, int width, int height) {
+    }
+}
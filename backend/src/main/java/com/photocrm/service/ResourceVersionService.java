@@ -0,0 +1,43 @@
+package com.photocrm.service;
+
+import com.photocrm.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+// Derives ETags for order-scoped reads from orders.content_version, so a conditional GET is answered
+// with one primary key lookup before any entity is loaded. The variant (typically the query string)
+// is folded in because pages and filters of the same order are different representations.
+@Service
+@Transactional(readOnly = true)
+public class ResourceVersionService {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${app.photo.presign.safety-margin:600000}")
+    private long presignSafetyMarginMillis;
+
+    // Returns null when the order does not exist, leaving the endpoint to produce its usual error
+    public String orderETag(UUID orderId, UUID tenantId, String variant) {
+        return orderRepository.findContentVersion(orderId, tenantId)
+            .map(version -> eTag("o", orderId, version, variant))
+            .orElse(null);
+    }
+
+    // Gallery bodies embed presigned URLs, so the tag also rolls over before any of them can expire
+    public String galleryETag(UUID orderId, String variant) {
+        long urlEpoch = System.currentTimeMillis() / presignSafetyMarginMillis;
+        return orderRepository.findContentVersionById(orderId)
+            .map(version -> eTag("g" + urlEpoch, orderId, version, variant))
+            .orElse(null);
+    }
+
+    private static String eTag(String kind, UUID orderId, long version, String variant) {
+        int variantHash = variant != null ? variant.hashCode() : 0;
+        return "W/\"" + kind + "-" + orderId + "-" + version + "-" + Integer.toHexString(variantHash) + "\"";
+    }
+}
@@ -0,0 +1,214 @@
+package com.photocrm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+// Deletes S3 objects through the s3_deletion_outbox table. Callers enqueue keys inside their own
+// transaction, so a rolled back delete never removes objects and a committed one is never lost.
+// A background worker claims due rows with SKIP LOCKED under a lease, removes them with DeleteObjects
+// (up to 1000 keys per call) outside any transaction, then retries failures with exponential backoff
+// and dead-letters keys that keep failing.
+@Service
+public class S3DeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(S3DeletionService.class);
+
+    // DeleteObjects accepts at most 1000 keys per request
+    private static final int MAX_KEYS_PER_REQUEST = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.bucket-name:photocrm-photos}")
+    private String bucketName;
+
+    @Value("${app.storage.deletion.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.storage.deletion.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    // A claimed batch becomes due again after this long if its worker dies before reporting back
+    @Value("${app.storage.deletion.lease:300000}")
+    private long leaseMillis;
+
+    @Value("${app.storage.deletion.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.storage.deletion.initial-backoff:30000}")
+    private long initialBackoffMillis;
+
+    @Value("${app.storage.deletion.max-backoff:3600000}")
+    private long maxBackoffMillis;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter deleted;
+    private Counter failed;
+    private Counter deadLettered;
+
+    @PostConstruct
+    public void init() {
+        batchSize = Math.max(1, Math.min(batchSize, MAX_KEYS_PER_REQUEST));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        deleted = Counter.builder("s3.deletions")
+            .description("Outbox deletions by outcome")
+            .tag("result", "deleted")
+            .register(meterRegistry);
+        failed = Counter.builder("s3.deletions")
+            .description("Outbox deletions by outcome")
+            .tag("result", "failed")
+            .register(meterRegistry);
+        deadLettered = Counter.builder("s3.deletions")
+            .description("Outbox deletions by outcome")
+            .tag("result", "dead_lettered")
+            .register(meterRegistry);
+    }
+
+    // Must run inside the transaction that stops referencing the objects
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(UUID tenantId, Collection<String> keys) {
+        List<String> objectKeys = keys.stream().filter(key -> key != null && !key.isEmpty()).distinct().toList();
+        if (objectKeys.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sql = new StringBuilder("INSERT INTO s3_deletion_outbox (tenant_id, object_key) VALUES ");
+        List<Object> args = new ArrayList<>(objectKeys.size() * 2);
+        for (int i = 0; i < objectKeys.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?)");
+            args.add(tenantId);
+            args.add(objectKeys.get(i));
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.deletion.poll-interval:5000}")
+    public void drain() {
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<OutboxEntry> entries = transactionTemplate.execute(status -> claim());
+            if (entries == null || entries.isEmpty()) {
+                return;
+            }
+            process(entries);
+            if (entries.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Rows whose key belongs to an active photo again (a re-upload under the same name) are dropped
+    // by the claim rather than returned
+    private List<OutboxEntry> claim() {
+        return jdbcTemplate.query(
+            "SELECT id, object_key, attempts FROM claim_s3_deletions(?, ?)",
+            (rs, rowNum) -> new OutboxEntry(rs.getLong("id"), rs.getString("object_key"), rs.getInt("attempts")),
+            batchSize, leaseMillis);
+    }
+
+    private void process(List<OutboxEntry> entries) {
+        // The same key may have been enqueued more than once; S3 only needs it once
+        Map<String, List<OutboxEntry>> byKey = new LinkedHashMap<>();
+        entries.forEach(entry -> byKey.computeIfAbsent(entry.objectKey(), key -> new ArrayList<>()).add(entry));
+
+        Map<String, String> errors = new HashMap<>();
+        try {
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                .bucket(bucketName)
+                .delete(Delete.builder()
+                    .objects(byKey.keySet().stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                    .quiet(true)
+                    .build())
+                .build());
+            for (S3Error error : response.errors()) {
+                errors.put(error.key(), error.code() + ": " + error.message());
+            }
+        } catch (RuntimeException e) {
+            byKey.keySet().forEach(key -> errors.put(key, e.getMessage()));
+        }
+
+        List<Long> done = new ArrayList<>();
+        List<OutboxEntry> retry = new ArrayList<>();
+        byKey.forEach((key, keyEntries) -> {
+            if (errors.containsKey(key)) {
+                retry.addAll(keyEntries);
+            } else {
+                keyEntries.forEach(entry -> done.add(entry.id()));
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!done.isEmpty()) {
+                jdbcTemplate.update("DELETE FROM s3_deletion_outbox WHERE id = ANY(?::bigint[])", idArray(done));
+            }
+            if (!retry.isEmpty()) {
+                scheduleRetries(retry, errors);
+            }
+        });
+        deleted.increment(done.size());
+    }
+
+    private void scheduleRetries(List<OutboxEntry> retry, Map<String, String> errors) {
+        List<Object[]> args = new ArrayList<>(retry.size());
+        for (OutboxEntry entry : retry) {
+            boolean giveUp = entry.attempts() >= maxAttempts;
+            long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(entry.attempts() - 1, 20));
+            args.add(new Object[] {backoff, errors.get(entry.objectKey()), giveUp, entry.id()});
+            if (giveUp) {
+                deadLettered.increment();
+                log.error("Giving up deleting S3 object {} after {} attempts: {}",
+                          entry.objectKey(), entry.attempts(), errors.get(entry.objectKey()));
+            } else {
+                failed.increment();
+            }
+        }
+        jdbcTemplate.batchUpdate(
+            "UPDATE s3_deletion_outbox SET next_attempt_at = now() + ? * interval '1 millisecond', last_error = ?, " +
+            "dead_lettered_at = CASE WHEN ? THEN now() END WHERE id = ?",
+            args);
+    }
+
+    private static String idArray(List<Long> ids) {
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        ids.forEach(id -> joiner.add(id.toString()));
+        return joiner.toString();
+    }
+
+    private record OutboxEntry(long id, String objectKey, int attempts) {
+    }
+}
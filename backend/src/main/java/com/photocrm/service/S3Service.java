@@ -1,5 +1,9 @@
 package com.photocrm.service;
 
+import com.photocrm.config.AsyncTasks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -7,11 +11,21 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.net.URL;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class S3Service {
@@ -25,12 +39,78 @@ public class S3Service {
     @Value("${aws.s3.bucket-name:photocrm-photos}")
     private String bucketName;
 
+    @Autowired
+    private AsyncTasks asyncTasks;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${app.photo.cdn-url:}")
     private String cdnUrl;
 
+    @Value("${app.photo.presign.upload-duration:600000}")
+    private long uploadDurationMillis;
+
+    @Value("${app.photo.presign.download-duration:3600000}")
+    private long downloadDurationMillis;
+
+    // A cached URL is handed out only while it has at least this long left to live
+    @Value("${app.photo.presign.safety-margin:600000}")
+    private long safetyMarginMillis;
+
+    @Value("${app.photo.presign.cache-size:50000}")
+    private int cacheSize;
+
+    @Value("${app.photo.presign.keys-per-task:100}")
+    private int keysPerTask;
+
+    // Download URLs by object key in access order, so the least recently viewed are evicted first
+    private Map<String, PresignedUrl> downloadUrls;
+    private final ReentrantLock downloadUrlsLock = new ReentrantLock();
+
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
+    @PostConstruct
+    public void init() {
+        downloadUrls = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PresignedUrl> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        cacheHits = Counter.builder("s3.presign.cache")
+            .description("Presigned download URL lookups")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        cacheMisses = Counter.builder("s3.presign.cache")
+            .description("Presigned download URL lookups")
+            .tag("result", "miss")
+            .register(meterRegistry);
+    }
+
     public String generatePresignedUploadUrl(UUID tenantId, UUID orderId, String filename, String mimeType) {
-        String key = generatePhotoKey(tenantId, orderId, filename);
-        
+        return signUpload(generatePhotoKey(tenantId, orderId, filename), mimeType);
+    }
+
+    // Signs a PUT URL for every key (mapped to its content type), spreading the signing over the CPU pool
+    public Map<String, String> generatePresignedUploadUrls(Map<String, String> mimeTypesByKey) {
+        List<String> keys = new ArrayList<>(mimeTypesByKey.keySet());
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += keysPerTask) {
+            chunks.add(keys.subList(from, Math.min(from + keysPerTask, keys.size())));
+        }
+
+        Map<String, String> urls = new HashMap<>(keys.size() * 2);
+        asyncTasks.parallelCpu(chunks, chunk -> {
+            Map<String, String> signed = new HashMap<>(chunk.size() * 2);
+            chunk.forEach(key -> signed.put(key, signUpload(key, mimeTypesByKey.get(key))));
+            return signed;
+        }).forEach(urls::putAll);
+        return urls;
+    }
+
+    private String signUpload(String key, String mimeType) {
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
             .bucket(bucketName)
             .key(key)
@@ -38,7 +118,7 @@ public class S3Service {
             .build();
 
         PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
-            .signatureDuration(Duration.ofMinutes(10))
+            .signatureDuration(Duration.ofMillis(uploadDurationMillis))
             .putObjectRequest(putObjectRequest)
             .build();
 
@@ -47,18 +127,88 @@ public class S3Service {
     }
 
     public String generatePresignedDownloadUrl(String s3Key) {
+        String cached = cachedDownloadUrl(s3Key);
+        if (cached != null) {
+            return cached;
+        }
+        PresignedUrl signed = signDownload(s3Key);
+        cacheDownloadUrl(s3Key, signed);
+        return signed.url();
+    }
+
+    // Signs every key not already cached, spreading the signing over the CPU pool
+    public Map<String, String> generatePresignedDownloadUrls(Collection<String> s3Keys) {
+        Map<String, String> urls = new HashMap<>(s3Keys.size() * 2);
+        List<String> missing = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(s3Keys)) {
+            String cached = cachedDownloadUrl(key);
+            if (cached != null) {
+                urls.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += keysPerTask) {
+            chunks.add(missing.subList(from, Math.min(from + keysPerTask, missing.size())));
+        }
+        List<Map<String, PresignedUrl>> signed = asyncTasks.parallelCpu(chunks, chunk -> {
+            Map<String, PresignedUrl> result = new HashMap<>(chunk.size() * 2);
+            chunk.forEach(key -> result.put(key, signDownload(key)));
+            return result;
+        });
+
+        downloadUrlsLock.lock();
+        try {
+            signed.forEach(result -> result.forEach((key, url) -> {
+                downloadUrls.put(key, url);
+                urls.put(key, url.url());
+            }));
+        } finally {
+            downloadUrlsLock.unlock();
+        }
+        return urls;
+    }
+
+    private String cachedDownloadUrl(String s3Key) {
+        PresignedUrl cached;
+        downloadUrlsLock.lock();
+        try {
+            cached = downloadUrls.get(s3Key);
+        } finally {
+            downloadUrlsLock.unlock();
+        }
+        if (cached != null && cached.expiresAt().isAfter(Instant.now().plusMillis(safetyMarginMillis))) {
+            cacheHits.increment();
+            return cached.url();
+        }
+        cacheMisses.increment();
+        return null;
+    }
+
+    private void cacheDownloadUrl(String s3Key, PresignedUrl url) {
+        downloadUrlsLock.lock();
+        try {
+            downloadUrls.put(s3Key, url);
+        } finally {
+            downloadUrlsLock.unlock();
+        }
+    }
+
+    private PresignedUrl signDownload(String s3Key) {
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
             .bucket(bucketName)
             .key(s3Key)
             .build();
 
         GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-            .signatureDuration(Duration.ofHours(1))
+            .signatureDuration(Duration.ofMillis(downloadDurationMillis))
             .getObjectRequest(getObjectRequest)
             .build();
 
-        URL presignedUrl = s3Presigner.presignGetObject(presignRequest).url();
-        return presignedUrl.toString();
+        PresignedGetObjectRequest presigned = s3Presigner.presignGetObject(presignRequest);
+        return new PresignedUrl(presigned.url().toString(), presigned.expiration());
     }
 
     public String generatePhotoUrl(String s3Key) {
@@ -122,7 +272,12 @@ public class S3Service {
         }
     }
 
-    private String generatePhotoKey(UUID tenantId, UUID orderId, String filename) {
+    // Filenames become the last segment of the object keys
+    public static boolean isValidFilename(String filename) {
+        return filename != null && !filename.isBlank() && !filename.contains("/");
+    }
+
+    public String generatePhotoKey(UUID tenantId, UUID orderId, String filename) {
         return String.format("tenants/%s/orders/%s/original/%s", 
                            tenantId.toString(), orderId.toString(), filename);
     }
@@ -136,4 +291,7 @@ public class S3Service {
         return String.format("tenants/%s/orders/%s/preview/%s", 
                            tenantId.toString(), orderId.toString(), filename);
     }
-}
\ No newline at end of file
+
+    private record PresignedUrl(String url, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.photocrm.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset listing. nextCursor is null on the last page; totalCount is only filled in
+// when the caller asked for it, since counting is the one part that grows with the table.
+public record SeekPage<T>(List<T> items, String nextCursor, Long totalCount) {
+
+    // Builds a page from a query that fetched limit + 1 rows to detect whether another page follows
+    static <T> SeekPage<T> of(List<T> rows, int limit, Function<T, KeysetCursor> position, Long totalCount) {
+        if (rows.size() <= limit) {
+            return new SeekPage<>(rows, null, totalCount);
+        }
+        List<T> page = rows.subList(0, limit);
+        return new SeekPage<>(page, position.apply(page.get(limit - 1)).encode(), totalCount);
+    }
+}
@@ -0,0 +1,322 @@
+package com.photocrm.service;
+
+import com.photocrm.entity.PhotoEntity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Pipes an upload request body straight into an S3 multipart upload. The body is cut into parts in
+// direct buffers borrowed from a fixed pool and the parts are sent in parallel, so memory per upload
+// is bounded by the part size times the per-upload parallelism and nothing is spooled to disk.
+@Service
+public class StreamingUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingUploadService.class);
+
+    // S3 rejects parts smaller than 5MB except the last one
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private PhotoService photoService;
+
+    @Autowired
+    private QuotaService quotaService;
+
+    @Autowired
+    private S3DeletionService s3DeletionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("storageExecutor")
+    private AsyncTaskExecutor storageExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.bucket-name:photocrm-photos}")
+    private String bucketName;
+
+    @Value("${app.photo.max-file-size:52428800}")
+    private long maxFileSize;
+
+    @Value("${app.photo.allowed-types:image/jpeg,image/png,image/tiff,image/raw}")
+    private List<String> allowedTypes;
+
+    @Value("${app.photo.streaming-upload.part-size:8388608}")
+    private int partSize;
+
+    @Value("${app.photo.streaming-upload.buffers:16}")
+    private int bufferCount;
+
+    @Value("${app.photo.streaming-upload.parallel-parts:4}")
+    private int parallelParts;
+
+    @Value("${app.photo.streaming-upload.buffer-wait:30000}")
+    private long bufferWaitMillis;
+
+    private BlockingQueue<ByteBuffer> buffers;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        partSize = Math.max(MIN_PART_SIZE, partSize);
+        buffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            buffers.add(ByteBuffer.allocateDirect(partSize));
+        }
+        Gauge.builder("photo.upload.stream.buffers.available", buffers, BlockingQueue::size)
+            .description("Pooled part buffers not currently holding upload data")
+            .register(meterRegistry);
+    }
+
+    public PhotoEntity upload(UUID tenantId, UUID orderId, String filename, String mimeType, InputStream body)
+            throws IOException {
+        if (mimeType != null && mimeType.indexOf(';') >= 0) {
+            mimeType = mimeType.substring(0, mimeType.indexOf(';')).trim();
+        }
+        if (mimeType == null || !allowedTypes.contains(mimeType)) {
+            throw new RuntimeException("Unsupported content type: " + mimeType);
+        }
+        if (!S3Service.isValidFilename(filename)) {
+            throw new RuntimeException("Invalid filename: " + filename);
+        }
+
+        String key = s3Service.generatePhotoKey(tenantId, orderId, filename);
+        // Completing the upload would overwrite the original of the existing photo
+        if (photoService.isOriginalInUse(tenantId, key)) {
+            throw new RuntimeException("Duplicate filename: " + filename);
+        }
+
+        // Fail before any of the body is read, and keep the room while it streams
+        try (QuotaService.Reservation reservation = quotaService.hold(tenantId, QuotaService.Resource.PHOTOS, 1)) {
+            long totalBytes = store(key, mimeType, body);
+            try {
+                // thumbnail_url is required; point it at the key the rendition job writes to
+                String thumbnailKey = s3Service.generateThumbnailKey(tenantId, orderId, filename);
+                return photoService.uploadPhoto(tenantId, orderId, filename, key, thumbnailKey, totalBytes, mimeType,
+                                                reservation);
+            } catch (RuntimeException e) {
+                // No row points at the object; the deletion worker removes it
+                transactionTemplate.executeWithoutResult(
+                    status -> s3DeletionService.enqueue(tenantId, List.of(key)));
+                throw e;
+            }
+        }
+    }
+
+    // Streams the body into a multipart upload at key and returns its size
+    private long store(String key, String mimeType, InputStream body) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(mimeType)
+                .build())
+            .uploadId();
+
+        Semaphore inFlight = new Semaphore(parallelParts);
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        long totalBytes = 0;
+        try {
+            int partNumber = 1;
+            while (true) {
+                inFlight.acquire();
+                ByteBuffer buffer = borrowBuffer();
+                int length;
+                try {
+                    length = fill(buffer, body);
+                } catch (IOException | RuntimeException e) {
+                    returnBuffer(buffer, inFlight);
+                    throw e;
+                }
+
+                if (length == 0 && partNumber > 1) {
+                    returnBuffer(buffer, inFlight);
+                    break;
+                }
+                totalBytes += length;
+                if (totalBytes > maxFileSize) {
+                    returnBuffer(buffer, inFlight);
+                    throw new RuntimeException("File exceeds the maximum size of " + maxFileSize + " bytes");
+                }
+                if (length == 0) {
+                    returnBuffer(buffer, inFlight);
+                    throw new RuntimeException("Upload body is empty");
+                }
+
+                parts.add(uploadPart(key, uploadId, partNumber, buffer, length, inFlight));
+                partNumber++;
+                if (length < partSize) {
+                    break;
+                }
+            }
+
+            List<CompletedPart> completed = awaitParts(parts);
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                .build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(key, uploadId, parts);
+            throw new IOException("Upload interrupted", e);
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId, parts);
+            throw e;
+        }
+        return totalBytes;
+    }
+
+    private CompletableFuture<CompletedPart> uploadPart(String key, String uploadId, int partNumber,
+                                                        ByteBuffer buffer, int length, Semaphore inFlight) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                UploadPartRequest request = UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength((long) length)
+                    .build();
+                // Each attempt, including SDK retries, reads the part from a fresh view of the buffer
+                RequestBody part = RequestBody.fromContentProvider(
+                    () -> new ByteBufferInputStream(buffer.duplicate()), length, "application/octet-stream");
+                String eTag = s3Client.uploadPart(request, part).eTag();
+                return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+            } finally {
+                returnBuffer(buffer, inFlight);
+            }
+        }, storageExecutor);
+    }
+
+    private List<CompletedPart> awaitParts(List<CompletableFuture<CompletedPart>> parts) {
+        try {
+            CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return parts.stream()
+            .map(CompletableFuture::join)
+            .sorted(Comparator.comparing(CompletedPart::partNumber))
+            .toList();
+    }
+
+    private void abort(String key, String uploadId, List<CompletableFuture<CompletedPart>> parts) {
+        // Let in-flight parts finish so their buffers go back to the pool before S3 drops the upload
+        try {
+            CompletableFuture.allOf(parts.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        } finally {
+            try {
+                s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            } catch (RuntimeException e) {
+                log.warn("Could not abort multipart upload {} for {}: {}", uploadId, key, e.getMessage());
+            }
+        }
+    }
+
+    // Reads until the buffer is full or the body ends; returns the number of bytes in the part
+    private int fill(ByteBuffer buffer, InputStream body) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int read = body.read(chunk, 0, Math.min(chunk.length, buffer.remaining()));
+            if (read < 0) {
+                break;
+            }
+            buffer.put(chunk, 0, read);
+        }
+        buffer.flip();
+        return buffer.limit();
+    }
+
+    private ByteBuffer borrowBuffer() throws InterruptedException, IOException {
+        ByteBuffer buffer = buffers.poll(bufferWaitMillis, TimeUnit.MILLISECONDS);
+        if (buffer == null) {
+            throw new IOException("Upload capacity exhausted, try again later");
+        }
+        return buffer;
+    }
+
+    private void returnBuffer(ByteBuffer buffer, Semaphore inFlight) {
+        buffer.clear();
+        buffers.offer(buffer);
+        inFlight.release();
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.photocrm.service;
+
+import com.photocrm.config.ReplicaRoutingDataSource;
+import com.photocrm.entity.TenantEntity;
+import com.photocrm.repository.TenantRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Near-cache of subdomain -> tenant used on every request. Warmed from the active tenants at startup
+// and kept current through a Redis invalidation channel, so request routing never queries Postgres
+// for a known tenant. Unknown subdomains are cached negatively for a short time.
+@Component
+public class TenantDirectory implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantDirectory.class);
+
+    static final String CHANNEL = "tenants:invalidate";
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${app.tenant.directory.negative-ttl:30000}")
+    private long negativeTtlMillis;
+
+    @Value("${app.tenant.directory.negative-max-entries:10000}")
+    private int negativeMaxEntries;
+
+    private final Map<String, TenantRef> bySubdomain = new ConcurrentHashMap<>();
+    private final Map<UUID, TenantRef> byId = new ConcurrentHashMap<>();
+    private final Map<String, Long> unknownSubdomains = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    // Safety net in case an invalidation message was lost while Redis was unreachable
+    @Scheduled(fixedDelayString = "${app.tenant.directory.refresh-interval:600000}",
+               initialDelayString = "${app.tenant.directory.refresh-interval:600000}")
+    public void reload() {
+        try {
+            Map<String, TenantRef> active = new HashMap<>();
+            for (TenantEntity tenant : ReplicaRoutingDataSource.onPrimary(tenantRepository::findAllActiveTenants)) {
+                active.put(tenant.getSubdomain(), store(TenantRef.of(tenant)));
+            }
+            // Anything else is reloaded from the database on its next lookup
+            bySubdomain.keySet().retainAll(active.keySet());
+            byId.values().removeIf(tenant -> !active.containsKey(tenant.subdomain()));
+            unknownSubdomains.clear();
+        } catch (DataAccessException e) {
+            log.warn("Could not load tenant directory: {}", e.getMessage());
+        }
+    }
+
+    public Optional<TenantRef> findBySubdomain(String subdomain) {
+        TenantRef tenant = bySubdomain.get(subdomain);
+        if (tenant != null) {
+            return Optional.of(tenant);
+        }
+
+        Long unknownUntil = unknownSubdomains.get(subdomain);
+        if (unknownUntil != null && unknownUntil > System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(refresh(subdomain));
+    }
+
+    public Optional<TenantRef> findActiveBySubdomain(String subdomain) {
+        return findBySubdomain(subdomain).filter(TenantRef::active);
+    }
+
+    public Optional<TenantRef> findById(UUID tenantId) {
+        TenantRef tenant = byId.get(tenantId);
+        if (tenant != null) {
+            return Optional.of(tenant);
+        }
+        return ReplicaRoutingDataSource.onPrimary(() -> tenantRepository.findById(tenantId))
+            .map(entity -> store(TenantRef.of(entity)));
+    }
+
+    // Cache-only lookup for callers that must not reach the database, such as connection acquisition
+    public Optional<TenantRef> peekById(UUID tenantId) {
+        return Optional.ofNullable(byId.get(tenantId));
+    }
+
+    // Publishes the change to every node once the surrounding transaction commits
+    public void invalidateAfterCommit(String subdomain) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(subdomain);
+                }
+            });
+        } else {
+            invalidate(subdomain);
+        }
+    }
+
+    public void invalidate(String subdomain) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, subdomain);
+        } catch (DataAccessException e) {
+            log.warn("Could not publish tenant invalidation for {}: {}", subdomain, e.getMessage());
+            refresh(subdomain);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String subdomain = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            refresh(subdomain);
+        } catch (DataAccessException e) {
+            // Drop the entry so the next lookup goes back to the database
+            bySubdomain.remove(subdomain);
+            log.warn("Could not refresh tenant {}: {}", subdomain, e.getMessage());
+        }
+    }
+
+    private TenantRef refresh(String subdomain) {
+        // Invalidations arrive right after a commit, before replicas are guaranteed to have it
+        TenantRef tenant = ReplicaRoutingDataSource.onPrimary(() -> tenantRepository.findBySubdomain(subdomain))
+            .map(TenantRef::of)
+            .orElse(null);
+        if (tenant != null) {
+            return store(tenant);
+        }
+
+        TenantRef previous = bySubdomain.remove(subdomain);
+        if (previous != null) {
+            byId.remove(previous.id());
+        }
+        if (unknownSubdomains.size() >= negativeMaxEntries) {
+            unknownSubdomains.clear();
+        }
+        unknownSubdomains.put(subdomain, System.currentTimeMillis() + negativeTtlMillis);
+        return null;
+    }
+
+    private TenantRef store(TenantRef tenant) {
+        bySubdomain.put(tenant.subdomain(), tenant);
+        byId.put(tenant.id(), tenant);
+        unknownSubdomains.remove(tenant.subdomain());
+        return tenant;
+    }
+
+    public record TenantRef(UUID id, String subdomain, TenantEntity.SubscriptionPlan plan, boolean active) {
+
+        static TenantRef of(TenantEntity tenant) {
+            return new TenantRef(tenant.getId(), tenant.getSubdomain(), tenant.getPlan(),
+                                 Boolean.TRUE.equals(tenant.getIsActive()));
+        }
+    }
+}
@@ -17,13 +17,18 @@ public class TenantService {
     @Autowired
     private TenantRepository tenantRepository;
 
+    @Autowired
+    private TenantDirectory tenantDirectory;
+
     public TenantEntity createTenant(String name, String subdomain, TenantEntity.SubscriptionPlan plan) {
         if (tenantRepository.existsBySubdomain(subdomain)) {
             throw new RuntimeException("Subdomain already exists: " + subdomain);
         }
 
         TenantEntity tenant = new TenantEntity(name, subdomain, plan);
-        return tenantRepository.save(tenant);
+        TenantEntity saved = tenantRepository.save(tenant);
+        tenantDirectory.invalidateAfterCommit(subdomain);
+        return saved;
     }
 
     public Optional<TenantEntity> getTenantById(UUID tenantId) {
@@ -42,7 +47,9 @@ public class TenantService {
         tenant.setPlan(plan);
         tenant.setSettings(settings);
 
-        return tenantRepository.save(tenant);
+        TenantEntity saved = tenantRepository.save(tenant);
+        tenantDirectory.invalidateAfterCommit(saved.getSubdomain());
+        return saved;
     }
 
     public void deactivateTenant(UUID tenantId) {
@@ -51,6 +58,7 @@ public class TenantService {
 
         tenant.setIsActive(false);
         tenantRepository.save(tenant);
+        tenantDirectory.invalidateAfterCommit(tenant.getSubdomain());
     }
 
     public List<TenantEntity> getAllActiveTenants() {
@@ -0,0 +1,139 @@
+package com.photocrm.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Hands out all presigned PUT URLs for a shoot in one call. The issued keys are kept in Redis under a
+// server-generated session id, so a later batch-upload can prove its keys were issued to this tenant
+// and order.
+@Service
+public class UploadSessionService {
+
+    static final String KEY_PREFIX = "photos:upload-session:";
+
+    private static final String TENANT_FIELD = "tenant";
+    private static final String ORDER_FIELD = "order";
+    private static final String FILE_FIELD_PREFIX = "file:";
+
+    @Autowired
+    private S3Service s3Service;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${app.photo.allowed-types:image/jpeg,image/png,image/tiff,image/raw}")
+    private List<String> allowedTypes;
+
+    @Value("${app.photo.upload-session.max-files:2000}")
+    private int maxFiles;
+
+    @Value("${app.photo.upload-session.ttl:86400000}")
+    private long sessionTtlMillis;
+
+    public UploadSession createSession(UUID tenantId, UUID orderId, List<UploadFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new RuntimeException("No files to upload");
+        }
+        if (files.size() > maxFiles) {
+            throw new RuntimeException("At most " + maxFiles + " files can be uploaded in one session");
+        }
+
+        // Validate everything before signing anything, and report every bad file at once
+        List<String> errors = new ArrayList<>();
+        Set<String> filenames = new HashSet<>();
+        for (UploadFile file : files) {
+            String filename = file.getFilename();
+            if (!S3Service.isValidFilename(filename)) {
+                errors.add("Invalid filename: " + filename);
+            } else if (!filenames.add(filename)) {
+                errors.add("Duplicate filename: " + filename);
+            } else if (file.getMimeType() == null || !allowedTypes.contains(file.getMimeType())) {
+                errors.add("Unsupported content type for " + filename + ": " + file.getMimeType());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new RuntimeException(String.join("; ", errors));
+        }
+
+        Map<String, String> mimeTypesByKey = new LinkedHashMap<>(files.size() * 2);
+        Map<String, String> keysByFilename = new HashMap<>(files.size() * 2);
+        for (UploadFile file : files) {
+            String key = s3Service.generatePhotoKey(tenantId, orderId, file.getFilename());
+            mimeTypesByKey.put(key, file.getMimeType());
+            keysByFilename.put(file.getFilename(), key);
+        }
+        Map<String, String> urls = s3Service.generatePresignedUploadUrls(mimeTypesByKey);
+
+        String sessionId = UUID.randomUUID().toString();
+        Map<String, String> fields = new HashMap<>(files.size() * 2 + 2);
+        fields.put(TENANT_FIELD, tenantId.toString());
+        fields.put(ORDER_FIELD, orderId.toString());
+        mimeTypesByKey.forEach((key, mimeType) -> fields.put(FILE_FIELD_PREFIX + key, mimeType));
+        // One round trip, and MULTI so the hash never exists without its TTL
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.multi();
+                operations.opsForHash().putAll(KEY_PREFIX + sessionId, fields);
+                operations.expire(KEY_PREFIX + sessionId, Duration.ofMillis(sessionTtlMillis));
+                operations.exec();
+                return null;
+            }
+        });
+
+        List<UploadTarget> targets = files.stream()
+            .map(file -> {
+                String key = keysByFilename.get(file.getFilename());
+                return new UploadTarget(file.getFilename(), key, urls.get(key));
+            })
+            .toList();
+        return new UploadSession(sessionId, Instant.now().plusMillis(sessionTtlMillis), targets);
+    }
+
+    // Throws unless the session exists, belongs to the tenant and order, and issued every key
+    public void verifyKeys(String sessionId, UUID tenantId, UUID orderId, List<String> keys) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(KEY_PREFIX + sessionId);
+        if (fields.isEmpty()
+                || !tenantId.toString().equals(fields.get(TENANT_FIELD))
+                || !orderId.toString().equals(fields.get(ORDER_FIELD))) {
+            throw new RuntimeException("Upload session not found");
+        }
+        for (String key : keys) {
+            if (!fields.containsKey(FILE_FIELD_PREFIX + key)) {
+                throw new RuntimeException("File was not issued by this upload session: " + key);
+            }
+        }
+    }
+
+    public static class UploadFile {
+        private String filename;
+        private String mimeType;
+
+        public String getFilename() { return filename; }
+        public void setFilename(String filename) { this.filename = filename; }
+        public String getMimeType() { return mimeType; }
+        public void setMimeType(String mimeType) { this.mimeType = mimeType; }
+    }
+
+    public record UploadTarget(String filename, String key, String uploadUrl) {
+    }
+
+    public record UploadSession(String sessionId, Instant expiresAt, List<UploadTarget> files) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.photocrm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Write-behind buffer for user activity timestamps. Events are coalesced per user in memory and
+// written by a background flusher with one UPDATE ... FROM (VALUES ...) per tenant, so logins never
+// take a row lock on users.
+@Component
+public class UserActivityTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(UserActivityTracker.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.activity.flush-batch-size:500}")
+    private int batchSize;
+
+    private final Map<UUID, PendingActivity> pending = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+    private Counter flushedRows;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        flushedRows = Counter.builder("users.activity.flushed")
+            .description("User activity rows written by the write-behind flusher")
+            .register(meterRegistry);
+        Gauge.builder("users.activity.pending", pending, Map::size)
+            .description("Users with activity waiting to be flushed")
+            .register(meterRegistry);
+    }
+
+    public void recordLogin(UUID userId, UUID tenantId, LocalDateTime at) {
+        pending.merge(userId, new PendingActivity(tenantId, at), PendingActivity::latest);
+    }
+
+    @Scheduled(fixedDelayString = "${app.activity.flush-interval:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Drain entry by entry so events recorded during the flush land in the next one
+        Map<UUID, Map<UUID, LocalDateTime>> byTenant = new HashMap<>();
+        for (UUID userId : pending.keySet()) {
+            PendingActivity activity = pending.remove(userId);
+            if (activity != null) {
+                byTenant.computeIfAbsent(activity.tenantId(), key -> new HashMap<>())
+                    .put(userId, activity.lastLoginAt());
+            }
+        }
+
+        byTenant.forEach((tenantId, logins) -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeLogins(tenantId, logins));
+                flushedRows.increment(logins.size());
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush activity for tenant {}, will retry: {}", tenantId, e.getMessage());
+                logins.forEach((userId, at) -> recordLogin(userId, tenantId, at));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void writeLogins(UUID tenantId, Map<UUID, LocalDateTime> logins) {
+        // Scope the batch to the tenant for row level security
+        jdbcTemplate.queryForObject("SELECT set_tenant_context(?)", Object.class, tenantId);
+
+        List<Map.Entry<UUID, LocalDateTime>> rows = new ArrayList<>(logins.entrySet());
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Map.Entry<UUID, LocalDateTime>> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+
+            StringBuilder sql = new StringBuilder("UPDATE users AS u SET last_login_at = v.last_login_at FROM (VALUES ");
+            List<Object> args = new ArrayList<>(chunk.size() * 2 + 1);
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append("(?::uuid, ?::timestamp)");
+                args.add(chunk.get(i).getKey());
+                args.add(chunk.get(i).getValue());
+            }
+            sql.append(") AS v(id, last_login_at) ")
+               .append("WHERE u.id = v.id AND u.tenant_id = ? ")
+               .append("AND (u.last_login_at IS NULL OR u.last_login_at < v.last_login_at)");
+            args.add(tenantId);
+
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    private record PendingActivity(UUID tenantId, LocalDateTime lastLoginAt) {
+
+        PendingActivity latest(PendingActivity other) {
+            return other.lastLoginAt.isAfter(lastLoginAt) ? other : this;
+        }
+    }
+}
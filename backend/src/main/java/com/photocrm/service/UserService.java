@@ -2,6 +2,7 @@ package com.photocrm.service;
 
 import com.photocrm.entity.UserEntity;
 import com.photocrm.repository.UserRepository;
+import com.photocrm.security.SecurityVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -25,6 +26,15 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private SecurityVersionService securityVersionService;
+
+    @Autowired
+    private UserActivityTracker activityTracker;
+
+    @Autowired
+    private QuotaService quotaService;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         // Extract tenant from context or from username format (email@domain.com:tenantId)
@@ -46,8 +56,13 @@ public class UserService implements UserDetailsService {
         return userRepository.findByEmailAndTenantIdAndIsActiveTrue(email, tenantId);
     }
 
+    public Optional<UserEntity> findLoginCandidate(String subdomain, String email) {
+        return userRepository.findActiveLoginCandidate(subdomain, email);
+    }
+
     public UserEntity createUser(UUID tenantId, String email, String password, String firstName, 
                                String lastName, UserEntity.UserRole role) {
+        quotaService.reserve(tenantId, QuotaService.Resource.USERS, 1);
         UserEntity user = new UserEntity(
             tenantId,
             email,
@@ -69,14 +84,21 @@ public class UserService implements UserDetailsService {
         user.setRole(role);
         user.setPermissions(role.getDefaultPermissions());
 
-        return userRepository.save(user);
+        UserEntity saved = userRepository.save(user);
+        securityVersionService.bumpAfterCommit(userId);
+        return saved;
     }
 
     public void updateLastLogin(UUID userId, UUID tenantId) {
+        activityTracker.recordLogin(userId, tenantId, LocalDateTime.now());
+    }
+
+    // Re-hash with the current cost without revoking the user's sessions
+    public void updatePasswordHash(UUID userId, UUID tenantId, String passwordHash) {
         UserEntity user = userRepository.findByIdAndTenantIdAndIsActiveTrue(userId, tenantId)
             .orElseThrow(() -> new RuntimeException("User not found"));
 
-        user.setLastLoginAt(LocalDateTime.now());
+        user.setPasswordHash(passwordHash);
         userRepository.save(user);
     }
 
@@ -86,6 +108,7 @@ public class UserService implements UserDetailsService {
 
         user.setPasswordHash(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        securityVersionService.bumpAfterCommit(userId);
     }
 
     public void deactivateUser(UUID userId, UUID tenantId) {
@@ -94,6 +117,8 @@ public class UserService implements UserDetailsService {
 
         user.setIsActive(false);
         userRepository.save(user);
+        securityVersionService.bumpAfterCommit(userId);
+        quotaService.release(tenantId, QuotaService.Resource.USERS, 1);
     }
 
     public List<UserEntity> getUsersByTenant(UUID tenantId) {
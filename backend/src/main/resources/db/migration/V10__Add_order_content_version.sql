@@ -0,0 +1,51 @@
+-- Version counter for conditional GETs on an order and everything shown with it (its photos and
+-- selections). Any change bumps it, so an ETag check is a primary key lookup on orders.
+ALTER TABLE orders ADD COLUMN content_version BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION bump_order_content_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.content_version = OLD.content_version THEN
+        NEW.content_version = OLD.content_version + 1;
+    END IF;
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER bump_orders_content_version
+    BEFORE UPDATE ON orders
+    FOR EACH ROW EXECUTE FUNCTION bump_order_content_version();
+
+-- Statement-level so a bulk insert or a set-based selection bumps each order once, not once per photo
+CREATE OR REPLACE FUNCTION bump_order_versions_from_new_rows()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE orders SET content_version = content_version + 1
+    WHERE id IN (SELECT DISTINCT order_id FROM changed_rows);
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE OR REPLACE FUNCTION bump_order_versions_from_old_rows()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE orders SET content_version = content_version + 1
+    WHERE id IN (SELECT DISTINCT order_id FROM removed_rows);
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER bump_order_version_on_photo_insert
+    AFTER INSERT ON photos
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_order_versions_from_new_rows();
+
+CREATE TRIGGER bump_order_version_on_photo_update
+    AFTER UPDATE ON photos
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_order_versions_from_new_rows();
+
+CREATE TRIGGER bump_order_version_on_photo_delete
+    AFTER DELETE ON photos
+    REFERENCING OLD TABLE AS removed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_order_versions_from_old_rows();
@@ -0,0 +1,4 @@
+-- Keyset pagination for order listings: newest first within a tenant, with id as the tie breaker.
+-- Photo listings seek on (order_id, uploaded_at, id) and are served by idx_photos_gallery_keyset (V9).
+CREATE INDEX idx_orders_tenant_created_keyset ON orders(tenant_id, created_at DESC, id DESC)
+    WHERE is_active = true;
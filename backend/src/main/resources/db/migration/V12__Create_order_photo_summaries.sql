@@ -0,0 +1,162 @@
+-- Per-order photo aggregates kept current by statement-level triggers on photos, so selection totals,
+-- order cards and storage figures are a primary key lookup instead of a scan. Only active photos count.
+CREATE TABLE order_photo_summaries (
+    order_id UUID PRIMARY KEY REFERENCES orders(id) ON DELETE CASCADE,
+    tenant_id UUID NOT NULL REFERENCES tenants(id) ON DELETE CASCADE,
+    photo_count INTEGER NOT NULL DEFAULT 0,
+    selected_count INTEGER NOT NULL DEFAULT 0,
+    selected_total DECIMAL(12,2) NOT NULL DEFAULT 0,
+    total_bytes BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_order_photo_summaries_tenant_id ON order_photo_summaries(tenant_id);
+
+ALTER TABLE order_photo_summaries ENABLE ROW LEVEL SECURITY;
+
+CREATE POLICY tenant_isolation_order_photo_summaries ON order_photo_summaries
+    FOR ALL TO application_role
+    USING (tenant_id = current_setting('app.current_tenant_id')::uuid);
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON order_photo_summaries TO application_role;
+
+CREATE OR REPLACE FUNCTION order_photo_summary_on_insert()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO order_photo_summaries AS s
+        (order_id, tenant_id, photo_count, selected_count, selected_total, total_bytes)
+    SELECT order_id, tenant_id,
+           count(*),
+           count(*) FILTER (WHERE is_selected),
+           COALESCE(sum(price) FILTER (WHERE is_selected), 0),
+           COALESCE(sum(file_size), 0)
+    FROM new_rows WHERE is_active
+    GROUP BY order_id, tenant_id
+    ON CONFLICT (order_id) DO UPDATE SET
+        photo_count = s.photo_count + EXCLUDED.photo_count,
+        selected_count = s.selected_count + EXCLUDED.selected_count,
+        selected_total = s.selected_total + EXCLUDED.selected_total,
+        total_bytes = s.total_bytes + EXCLUDED.total_bytes,
+        updated_at = CURRENT_TIMESTAMP;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE OR REPLACE FUNCTION order_photo_summary_on_delete()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO order_photo_summaries AS s
+        (order_id, tenant_id, photo_count, selected_count, selected_total, total_bytes)
+    SELECT order_id, tenant_id,
+           -count(*),
+           -count(*) FILTER (WHERE is_selected),
+           -COALESCE(sum(price) FILTER (WHERE is_selected), 0),
+           -COALESCE(sum(file_size), 0)
+    FROM old_rows
+    -- Photos removed by an order cascade take their summary with them
+    WHERE is_active AND EXISTS (SELECT 1 FROM orders o WHERE o.id = old_rows.order_id)
+    GROUP BY order_id, tenant_id
+    ON CONFLICT (order_id) DO UPDATE SET
+        photo_count = s.photo_count + EXCLUDED.photo_count,
+        selected_count = s.selected_count + EXCLUDED.selected_count,
+        selected_total = s.selected_total + EXCLUDED.selected_total,
+        total_bytes = s.total_bytes + EXCLUDED.total_bytes,
+        updated_at = CURRENT_TIMESTAMP;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+-- Covers select/deselect, price and size changes, soft deletes and moves between orders
+CREATE OR REPLACE FUNCTION order_photo_summary_on_update()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO order_photo_summaries AS s
+        (order_id, tenant_id, photo_count, selected_count, selected_total, total_bytes)
+    SELECT order_id, tenant_id, sum(photos), sum(selected), sum(selected_total), sum(bytes)
+    FROM (
+        SELECT order_id, tenant_id, 1 AS photos,
+               CASE WHEN is_selected THEN 1 ELSE 0 END AS selected,
+               CASE WHEN is_selected THEN COALESCE(price, 0) ELSE 0 END AS selected_total,
+               file_size AS bytes
+        FROM new_rows WHERE is_active
+        UNION ALL
+        SELECT order_id, tenant_id, -1,
+               CASE WHEN is_selected THEN -1 ELSE 0 END,
+               CASE WHEN is_selected THEN -COALESCE(price, 0) ELSE 0 END,
+               -file_size
+        FROM old_rows WHERE is_active
+    ) AS changes
+    GROUP BY order_id, tenant_id
+    -- Skip orders whose figures did not move, e.g. a filename or thumbnail change
+    HAVING sum(photos) <> 0 OR sum(selected) <> 0 OR sum(selected_total) <> 0 OR sum(bytes) <> 0
+    ON CONFLICT (order_id) DO UPDATE SET
+        photo_count = s.photo_count + EXCLUDED.photo_count,
+        selected_count = s.selected_count + EXCLUDED.selected_count,
+        selected_total = s.selected_total + EXCLUDED.selected_total,
+        total_bytes = s.total_bytes + EXCLUDED.total_bytes,
+        updated_at = CURRENT_TIMESTAMP;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER order_photo_summary_after_insert
+    AFTER INSERT ON photos
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION order_photo_summary_on_insert();
+
+CREATE TRIGGER order_photo_summary_after_update
+    AFTER UPDATE ON photos
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION order_photo_summary_on_update();
+
+CREATE TRIGGER order_photo_summary_after_delete
+    AFTER DELETE ON photos
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION order_photo_summary_on_delete();
+
+-- Recomputes summaries from photos for one tenant, one order, or everything when both are NULL.
+-- Returns the number of summaries that were missing or had drifted.
+CREATE OR REPLACE FUNCTION rebuild_order_photo_summaries(target_tenant UUID DEFAULT NULL, target_order UUID DEFAULT NULL)
+RETURNS INTEGER AS $$
+DECLARE
+    corrected INTEGER;
+BEGIN
+    -- Photo writers lock their order row (V10 content_version bump) before applying deltas, so holding
+    -- these locks means every delta is either already in our snapshot or applied after we commit
+    PERFORM 1 FROM orders
+    WHERE (target_tenant IS NULL OR tenant_id = target_tenant)
+      AND (target_order IS NULL OR id = target_order)
+    ORDER BY id
+    FOR UPDATE;
+
+    WITH actual AS (
+        SELECT o.id AS order_id, o.tenant_id,
+               count(p.id)::int AS photo_count,
+               count(p.id) FILTER (WHERE p.is_selected)::int AS selected_count,
+               COALESCE(sum(p.price) FILTER (WHERE p.is_selected), 0) AS selected_total,
+               COALESCE(sum(p.file_size), 0) AS total_bytes
+        FROM orders o
+        LEFT JOIN photos p ON p.order_id = o.id AND p.is_active
+        WHERE (target_tenant IS NULL OR o.tenant_id = target_tenant)
+          AND (target_order IS NULL OR o.id = target_order)
+        GROUP BY o.id, o.tenant_id
+    ), upserted AS (
+        INSERT INTO order_photo_summaries AS s
+            (order_id, tenant_id, photo_count, selected_count, selected_total, total_bytes)
+        SELECT order_id, tenant_id, photo_count, selected_count, selected_total, total_bytes FROM actual
+        ON CONFLICT (order_id) DO UPDATE SET
+            photo_count = EXCLUDED.photo_count,
+            selected_count = EXCLUDED.selected_count,
+            selected_total = EXCLUDED.selected_total,
+            total_bytes = EXCLUDED.total_bytes,
+            updated_at = CURRENT_TIMESTAMP
+        WHERE (s.photo_count, s.selected_count, s.selected_total, s.total_bytes)
+              IS DISTINCT FROM (EXCLUDED.photo_count, EXCLUDED.selected_count, EXCLUDED.selected_total, EXCLUDED.total_bytes)
+        RETURNING 1
+    )
+    SELECT count(*) INTO corrected FROM upserted;
+    RETURN corrected;
+END;
+$$ language 'plpgsql';
+
+SELECT rebuild_order_photo_summaries();
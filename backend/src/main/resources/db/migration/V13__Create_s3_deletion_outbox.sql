@@ -0,0 +1,21 @@
+-- Transactional outbox for S3 object deletions. Rows are written in the same transaction that
+-- deactivates the photo and drained by a background worker in DeleteObjects batches.
+-- No RLS: the worker drains every tenant's deletions, and rows only hold object keys.
+CREATE TABLE s3_deletion_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id UUID NOT NULL,
+    object_key VARCHAR(500) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    dead_lettered_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_s3_deletion_outbox_due ON s3_deletion_outbox(next_attempt_at, id)
+    WHERE dead_lettered_at IS NULL;
+CREATE INDEX idx_s3_deletion_outbox_dead_lettered ON s3_deletion_outbox(dead_lettered_at)
+    WHERE dead_lettered_at IS NOT NULL;
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON s3_deletion_outbox TO application_role;
+GRANT USAGE, SELECT ON SEQUENCE s3_deletion_outbox_id_seq TO application_role;
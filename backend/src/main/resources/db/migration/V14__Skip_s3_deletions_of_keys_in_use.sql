@@ -0,0 +1,36 @@
+-- Object keys are derived from tenant, order and filename, so a photo re-uploaded under a deleted
+-- photo's name reuses its keys. Outbox rows whose key belongs to an active photo again are dropped
+-- instead of deleting the new photo's objects.
+CREATE INDEX idx_photos_active_original_url ON photos(original_url) WHERE is_active = true;
+CREATE INDEX idx_photos_active_thumbnail_url ON photos(thumbnail_url) WHERE is_active = true;
+CREATE INDEX idx_photos_active_preview_url ON photos(preview_url) WHERE is_active = true;
+
+-- Claims up to batch_size due rows under a lease. SECURITY DEFINER so the photo check sees every
+-- tenant's photos regardless of the session's RLS context.
+CREATE OR REPLACE FUNCTION claim_s3_deletions(batch_size INTEGER, lease_millis BIGINT)
+RETURNS TABLE (id BIGINT, object_key VARCHAR, attempts INTEGER) AS $$
+    WITH due AS (
+        SELECT o.id, o.tenant_id, o.object_key FROM s3_deletion_outbox o
+        WHERE o.dead_lettered_at IS NULL AND o.next_attempt_at <= now()
+        ORDER BY o.next_attempt_at, o.id
+        LIMIT batch_size
+        FOR UPDATE SKIP LOCKED
+    ), in_use AS (
+        DELETE FROM s3_deletion_outbox o USING due
+        WHERE o.id = due.id
+          AND EXISTS (SELECT 1 FROM photos p
+                      WHERE p.is_active AND p.tenant_id = due.tenant_id
+                        AND (p.original_url = due.object_key
+                             OR p.thumbnail_url = due.object_key
+                             OR p.preview_url = due.object_key))
+        RETURNING o.id
+    )
+    UPDATE s3_deletion_outbox o
+    SET attempts = o.attempts + 1,
+        next_attempt_at = now() + lease_millis * interval '1 millisecond'
+    FROM due
+    WHERE o.id = due.id AND NOT EXISTS (SELECT 1 FROM in_use WHERE in_use.id = o.id)
+    RETURNING o.id, o.object_key, o.attempts;
+$$ LANGUAGE sql SECURITY DEFINER SET search_path = public;
+
+GRANT EXECUTE ON FUNCTION claim_s3_deletions(INTEGER, BIGINT) TO application_role;
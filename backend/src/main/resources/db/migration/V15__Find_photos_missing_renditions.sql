@@ -0,0 +1,16 @@
+-- Active photos whose rendition job never recorded the image dimensions, for example because the
+-- rendition queue was full or the node restarted first. SECURITY DEFINER so the sweep sees every
+-- tenant's photos regardless of the session's RLS context.
+CREATE OR REPLACE FUNCTION find_photos_missing_renditions(grace_millis BIGINT, max_age_millis BIGINT, batch_size INTEGER)
+RETURNS TABLE (id UUID, tenant_id UUID, original_url VARCHAR) AS $$
+    SELECT p.id, p.tenant_id, p.original_url FROM photos p
+    WHERE p.is_active
+      AND p.original_url LIKE '%/original/%'
+      AND p.uploaded_at < CURRENT_TIMESTAMP - grace_millis * interval '1 millisecond'
+      AND p.uploaded_at > CURRENT_TIMESTAMP - max_age_millis * interval '1 millisecond'
+      AND (p.metadata IS NULL OR NOT (p.metadata ? 'width' AND p.metadata ? 'height'))
+    ORDER BY p.uploaded_at
+    LIMIT batch_size;
+$$ LANGUAGE sql STABLE SECURITY DEFINER SET search_path = public;
+
+GRANT EXECUTE ON FUNCTION find_photos_missing_renditions(BIGINT, BIGINT, INTEGER) TO application_role;
@@ -0,0 +1,6 @@
+-- Keyset pagination for the public gallery: (uploaded_at, id) is a total order within an order, so a
+-- page is one index range scan. The included columns keep the rest of the row small, but width and
+-- height come from metadata, so each of the page's rows is still read from the heap.
+CREATE INDEX idx_photos_gallery_keyset ON photos(order_id, uploaded_at, id)
+    INCLUDE (thumbnail_url, preview_url, is_selected, selection_order)
+    WHERE is_active = true;
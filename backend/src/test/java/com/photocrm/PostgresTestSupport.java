@@ -0,0 +1,80 @@
+package com.photocrm;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+// One migrated Postgres container shared by every database test in the JVM. Tests connect as a login
+// role in application_role: the container's superuser owns the tables and bypasses row level security.
+public abstract class PostgresTestSupport {
+
+    protected static final String APP_USER = "photocrm_app";
+
+    protected static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    static {
+        postgres.start();
+        Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .load()
+            .migrate();
+        try (Connection connection = ownerConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ROLE " + APP_USER + " LOGIN PASSWORD '" + APP_USER + "' IN ROLE application_role");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create the application login role", e);
+        }
+    }
+
+    // Configured like the application's pool: auto-commit off, connecting as the application role
+    protected static HikariDataSource appDataSource(int poolSize) {
+        return new HikariDataSource(appConfig(poolSize));
+    }
+
+    protected static HikariConfig appConfig(int poolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl());
+        config.setUsername(APP_USER);
+        config.setPassword(APP_USER);
+        config.setMaximumPoolSize(poolSize);
+        config.setAutoCommit(false);
+        return config;
+    }
+
+    protected static Connection ownerConnection() throws SQLException {
+        return postgres.createConnection("");
+    }
+
+    protected static UUID createTenant(String name) throws SQLException {
+        UUID tenantId = UUID.randomUUID();
+        try (Connection connection = ownerConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "INSERT INTO tenants (id, name, subdomain, plan) VALUES (?, ?, ?, 'BASIC')")) {
+            statement.setObject(1, tenantId);
+            statement.setString(2, name);
+            statement.setString(3, name.toLowerCase() + "-" + tenantId);
+            statement.executeUpdate();
+        }
+        return tenantId;
+    }
+
+    protected static UUID createOrder(UUID tenantId, String title) throws SQLException {
+        UUID orderId = UUID.randomUUID();
+        try (Connection connection = ownerConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "INSERT INTO orders (id, tenant_id, client_id, title) VALUES (?, ?, ?, ?)")) {
+            statement.setObject(1, orderId);
+            statement.setObject(2, tenantId);
+            statement.setObject(3, UUID.randomUUID());
+            statement.setString(4, title);
+            statement.executeUpdate();
+        }
+        return orderId;
+    }
+}
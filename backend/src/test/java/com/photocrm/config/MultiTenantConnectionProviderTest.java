@@ -0,0 +1,162 @@
+package com.photocrm.config;
+
+import com.photocrm.PostgresTestSupport;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultiTenantConnectionProviderTest extends PostgresTestSupport {
+
+    private static UUID tenantA;
+    private static UUID tenantB;
+
+    private HikariDataSource dataSource;
+    private MultiTenantConnectionProvider provider;
+
+    @BeforeAll
+    static void createTenants() throws SQLException {
+        tenantA = createTenant("Studio A");
+        tenantB = createTenant("Studio B");
+        createOrder(tenantA, "Wedding A");
+        createOrder(tenantB, "Wedding B");
+    }
+
+    @BeforeEach
+    void setUp() {
+        // A single pooled connection, so every checkout below reuses the same physical session
+        dataSource = appDataSource(1);
+
+        TenantBulkhead bulkhead = new TenantBulkhead();
+        ReflectionTestUtils.setField(bulkhead, "enabled", false);
+
+        provider = new MultiTenantConnectionProvider();
+        ReflectionTestUtils.setField(provider, "dataSource", dataSource);
+        ReflectionTestUtils.setField(provider, "tenantBulkhead", bulkhead);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void pooledConnectionOnlySeesTheTenantItIsCheckedOutFor() throws SQLException {
+        int backendPid = withConnection(tenantA.toString(), connection -> {
+            assertEquals(tenantA.toString(), currentTenant(connection));
+            assertEquals(List.of("Wedding A"), orderTitles(connection));
+            return backendPid(connection);
+        });
+
+        withConnection(tenantB.toString(), connection -> {
+            assertEquals(backendPid, backendPid(connection));
+            assertEquals(tenantB.toString(), currentTenant(connection));
+            assertEquals(List.of("Wedding B"), orderTitles(connection));
+            return null;
+        });
+
+        // The resolver's fallback when no tenant is set
+        withConnection("public", connection -> {
+            assertEquals(backendPid, backendPid(connection));
+            assertEquals("", currentTenant(connection));
+            assertThrows(SQLException.class, () -> orderTitles(connection));
+            return null;
+        });
+
+        withConnection(tenantA.toString(), connection -> {
+            assertEquals(backendPid, backendPid(connection));
+            assertEquals(tenantA.toString(), currentTenant(connection));
+            assertEquals(List.of("Wedding A"), orderTitles(connection));
+            return null;
+        });
+    }
+
+    @Test
+    void rollbackDoesNotUndoTheBinding() throws SQLException {
+        withConnection(tenantB.toString(), connection -> {
+            connection.rollback();
+            return null;
+        });
+
+        // Same tenant again, so the provider skips the round trip and relies on the session value
+        withConnection(tenantB.toString(), connection -> {
+            assertEquals(tenantB.toString(), currentTenant(connection));
+            assertEquals(List.of("Wedding B"), orderTitles(connection));
+            return null;
+        });
+    }
+
+    @Test
+    void transactionLocalContextDoesNotOutliveItsTransaction() throws SQLException {
+        withConnection(tenantA.toString(), connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT set_tenant_context(?)")) {
+                statement.setObject(1, tenantB);
+                statement.execute();
+            }
+            assertEquals(List.of("Wedding B"), orderTitles(connection));
+            connection.commit();
+            return null;
+        });
+
+        withConnection(tenantA.toString(), connection -> {
+            assertEquals(tenantA.toString(), currentTenant(connection));
+            assertEquals(List.of("Wedding A"), orderTitles(connection));
+            return null;
+        });
+    }
+
+    private <T> T withConnection(String tenantIdentifier, ConnectionCallback<T> callback) throws SQLException {
+        Connection connection = provider.getConnection(tenantIdentifier);
+        try {
+            return callback.apply(connection);
+        } finally {
+            provider.releaseConnection(tenantIdentifier, connection);
+        }
+    }
+
+    private static String currentTenant(Connection connection) throws SQLException {
+        return queryForString(connection, "SELECT current_setting('app.current_tenant_id', true)");
+    }
+
+    private static int backendPid(Connection connection) throws SQLException {
+        return Integer.parseInt(queryForString(connection, "SELECT pg_backend_pid()::text"));
+    }
+
+    // Orders are protected by the tenant_isolation_orders policy
+    private static List<String> orderTitles(Connection connection) throws SQLException {
+        List<String> titles = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT title FROM orders ORDER BY title");
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                titles.add(rs.getString(1));
+            }
+        }
+        return titles;
+    }
+
+    private static String queryForString(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionCallback<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+}
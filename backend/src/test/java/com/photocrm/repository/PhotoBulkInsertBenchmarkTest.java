@@ -0,0 +1,218 @@
+package com.photocrm.repository;
+
+import com.photocrm.PostgresTestSupport;
+import com.photocrm.entity.PhotoEntity;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compares PhotoRepository.insertAll with the per-entity save loop batch uploads used before it.
+// Run with -Dphoto.bulk-insert.benchmark.photos=N to change the batch size; rows/sec are logged.
+class PhotoBulkInsertBenchmarkTest extends PostgresTestSupport {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoBulkInsertBenchmarkTest.class);
+
+    private static final int PHOTOS = Integer.getInteger("photo.bulk-insert.benchmark.photos", 2000);
+    private static final int WARMUP_PHOTOS = 200;
+
+    private static HikariDataSource dataSource;
+    private static EntityManagerFactory entityManagerFactory;
+    private static TransactionTemplate transactionTemplate;
+    private static JdbcTemplate jdbcTemplate;
+    private static SimpleJpaRepository<PhotoEntity, UUID> jpaRepository;
+    private static PhotoRepositoryCustomImpl bulkRepository;
+
+    private static UUID tenantId;
+    private static UUID otherTenantId;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        HikariConfig config = appConfig(4);
+        // PhotoEntity maps the jsonb metadata column as a String
+        config.addDataSourceProperty("stringtype", "unspecified");
+        dataSource = new HikariDataSource(config);
+
+        // Same Hibernate settings as DatabaseConfig, so the save loop batches its inserts as it did in production
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.photocrm.entity");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        properties.setProperty("hibernate.hbm2ddl.auto", "none");
+        properties.setProperty("hibernate.jdbc.time_zone", "UTC");
+        properties.setProperty("hibernate.connection.provider_disables_autocommit", "true");
+        properties.setProperty("hibernate.jdbc.batch_size", "25");
+        properties.setProperty("hibernate.order_inserts", "true");
+        factory.setJpaProperties(properties);
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        transactionManager.setDataSource(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jpaRepository = new SimpleJpaRepository<>(PhotoEntity.class,
+            SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+
+        bulkRepository = new PhotoRepositoryCustomImpl();
+        ReflectionTestUtils.setField(bulkRepository, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(bulkRepository, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bulkRepository, "rowsPerStatement", 500);
+        bulkRepository.init();
+
+        tenantId = createTenant("Bulk Studio");
+        otherTenantId = createTenant("Other Studio");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManagerFactory.close();
+        dataSource.close();
+    }
+
+    @Test
+    void reportsRowsPerSecondForSaveLoopAndInsertAll() throws SQLException {
+        // Warm both paths up so class loading and statement preparation are not measured
+        saveOneByOne(createOrder(tenantId, "Warm-up save"), WARMUP_PHOTOS);
+        insertAll(createOrder(tenantId, "Warm-up insertAll"), WARMUP_PHOTOS);
+
+        UUID saveOrder = createOrder(tenantId, "Per-entity save");
+        long started = System.nanoTime();
+        saveOneByOne(saveOrder, PHOTOS);
+        long saveNanos = System.nanoTime() - started;
+
+        UUID bulkOrder = createOrder(tenantId, "insertAll");
+        started = System.nanoTime();
+        insertAll(bulkOrder, PHOTOS);
+        long bulkNanos = System.nanoTime() - started;
+
+        log.info("Inserted {} photos: per-entity save {} rows/sec, insertAll {} rows/sec ({}x)",
+                 PHOTOS, rowsPerSecond(saveNanos), rowsPerSecond(bulkNanos),
+                 String.format("%.1f", (double) saveNanos / bulkNanos));
+
+        assertEquals(PHOTOS, countPhotos(tenantId, saveOrder));
+        assertEquals(PHOTOS, countPhotos(tenantId, bulkOrder));
+    }
+
+    @Test
+    void returnsTheIdsOfTheInsertedRows() throws SQLException {
+        UUID orderId = createOrder(tenantId, "Returned ids");
+        // Spans several statements at 500 rows each
+        List<PhotoEntity> inserted = insertAll(orderId, 1234);
+
+        Map<UUID, String> returned = inserted.stream()
+            .collect(Collectors.toMap(PhotoEntity::getId, PhotoEntity::getFilename));
+        Map<UUID, String> stored = inTenant(tenantId, () -> jdbcTemplate.query(
+            "SELECT id, filename FROM photos WHERE order_id = ?",
+            rs -> {
+                Map<UUID, String> rows = new HashMap<>();
+                while (rs.next()) {
+                    rows.put(rs.getObject("id", UUID.class), rs.getString("filename"));
+                }
+                return rows;
+            },
+            orderId));
+
+        assertEquals(inserted.size(), returned.size());
+        assertEquals(returned, stored);
+    }
+
+    @Test
+    void rowLevelSecurityRejectsAMismatchedTenant() throws SQLException {
+        UUID orderId = createOrder(tenantId, "Mismatched tenant");
+
+        // insertAll refuses another tenant's photos before anything reaches the database
+        RuntimeException refused = assertThrows(RuntimeException.class, () -> transactionTemplate.execute(
+            status -> bulkRepository.insertAll(tenantId, photos(otherTenantId, orderId, 1))));
+        assertEquals("Photo belongs to another tenant", refused.getMessage());
+
+        // Behind that check, the policy rejects rows that do not match the session's tenant
+        DataAccessException rejected = assertThrows(DataAccessException.class, () -> inTenant(otherTenantId,
+            () -> jdbcTemplate.update(
+                "INSERT INTO photos (tenant_id, order_id, filename, original_url, thumbnail_url, file_size, mime_type) " +
+                "VALUES (?, ?, 'IMG_0001.jpg', 'original', 'thumbnail', 1, 'image/jpeg')",
+                tenantId, orderId)));
+        assertTrue(rejected.getMessage().contains("row-level security"), rejected.getMessage());
+
+        // Rows written by insertAll are only visible to their own tenant
+        insertAll(orderId, 3);
+        assertEquals(3, countPhotos(tenantId, orderId));
+        assertEquals(0, countPhotos(otherTenantId, orderId));
+    }
+
+    // The path batchUploadPhotos took before insertAll: one save per photo in a single transaction.
+    // Auditing fills the timestamps in the application; the bare entity manager here has no auditing handler.
+    private static void saveOneByOne(UUID orderId, int count) {
+        List<PhotoEntity> photos = photos(tenantId, orderId, count);
+        inTenant(tenantId, () -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (PhotoEntity photo : photos) {
+                photo.setCreatedAt(now);
+                photo.setUpdatedAt(now);
+                jpaRepository.save(photo);
+            }
+            return null;
+        });
+    }
+
+    private static List<PhotoEntity> insertAll(UUID orderId, int count) {
+        List<PhotoEntity> photos = photos(tenantId, orderId, count);
+        return transactionTemplate.execute(status -> bulkRepository.insertAll(tenantId, photos));
+    }
+
+    private static List<PhotoEntity> photos(UUID photoTenantId, UUID orderId, int count) {
+        String prefix = "tenants/" + photoTenantId + "/orders/" + orderId + "/";
+        Function<Integer, PhotoEntity> photo = i -> new PhotoEntity(
+            photoTenantId, orderId, String.format("IMG_%05d.jpg", i), prefix + "originals/" + i,
+            prefix + "thumbnails/" + i, 5_000_000L + i, "image/jpeg");
+        return IntStream.range(0, count).boxed().map(photo).toList();
+    }
+
+    private static int countPhotos(UUID sessionTenantId, UUID orderId) {
+        return inTenant(sessionTenantId, () -> jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM photos WHERE order_id = ?", Integer.class, orderId));
+    }
+
+    private static <T> T inTenant(UUID sessionTenantId, Supplier<T> work) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT set_tenant_context(?)", Object.class, sessionTenantId);
+            return work.get();
+        });
+    }
+
+    private static long rowsPerSecond(long nanos) {
+        return Math.round(PHOTOS * 1_000_000_000d / nanos);
+    }
+}
@@ -57,8 +57,11 @@ export const authService = {
     return response.data
   },
 
-  logout: async (): Promise<void> => {
-    await api.post('/auth/logout')
+  // Pass the access token when the default Authorization header may already have been cleared
+  logout: async (refreshToken?: string | null, accessToken?: string | null): Promise<void> => {
+    await api.post('/auth/logout', { refreshToken }, accessToken
+      ? { headers: { Authorization: `Bearer ${accessToken}` } }
+      : undefined)
   },
 
   forgotPassword: async (email: string, subdomain: string): Promise<void> => {
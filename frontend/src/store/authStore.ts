@@ -1,6 +1,7 @@
 import { create } from 'zustand'
 import { persist } from 'zustand/middleware'
 import { api } from '../services/api'
+import { authService } from '../services/auth'
 
 export interface User {
   id: string
@@ -82,6 +83,13 @@ export const useAuthStore = create<AuthState & AuthActions>()(
       },
 
       logout: () => {
+        const { accessToken, refreshToken } = get()
+
+        // Revoke both tokens on the server so a copied refresh token stops working; local state is cleared regardless
+        if (accessToken) {
+          authService.logout(refreshToken, accessToken).catch(() => {})
+        }
+
         set({
           user: null,
           accessToken: null,
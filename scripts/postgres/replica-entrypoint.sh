@@ -0,0 +1,14 @@
+#!/bin/bash
+set -e
+
+# Clone the primary on first start, then run as a hot standby streaming from it
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+    until pg_isready -h postgres -U "$PGUSER"; do
+        echo "Waiting for primary..."
+        sleep 1
+    done
+    pg_basebackup -h postgres -D "$PGDATA" -U "$PGUSER" -X stream -R -C -S photocrm_replica
+    chmod 0700 "$PGDATA"
+fi
+
+exec docker-entrypoint.sh postgres -c hot_standby=on